@@ -0,0 +1,32 @@
+package edu.hei.school.restaurant.endpoint.mapper;
+
+import edu.hei.school.restaurant.endpoint.rest.OrderRest;
+import edu.hei.school.restaurant.model.DishOrderStatus;
+import edu.hei.school.restaurant.model.ModelFixtures;
+import edu.hei.school.restaurant.model.Order;
+import edu.hei.school.restaurant.model.OrderStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// OrderRestMapper.toRest en fonction du nombre de lignes de la commande
+@State(Scope.Benchmark)
+public class OrderRestMapperBenchmark {
+    @Param({"1", "10", "100"})
+    public int orderLines;
+
+    private final OrderRestMapper orderRestMapper = new OrderRestMapper();
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        order = ModelFixtures.order(orderLines, OrderStatus.EN_PREPARATION, DishOrderStatus.EN_PREPARATION);
+    }
+
+    @Benchmark
+    public OrderRest toRest() {
+        return orderRestMapper.toRest(order);
+    }
+}
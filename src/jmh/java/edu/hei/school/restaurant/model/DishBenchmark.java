@@ -0,0 +1,35 @@
+package edu.hei.school.restaurant.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Dish.getAvailableQuantity / getTotalIngredientsCost en fonction de la taille de la recette
+// et du registre de mouvements de chaque ingrédient
+@State(Scope.Benchmark)
+public class DishBenchmark {
+    @Param({"3", "10", "30"})
+    public int recipeSize;
+
+    @Param({"100", "10000"})
+    public int ledgerSize;
+
+    private Dish dish;
+
+    @Setup
+    public void setUp() {
+        dish = ModelFixtures.dish(1, recipeSize, ledgerSize, 50, false);
+    }
+
+    @Benchmark
+    public Double availableQuantity() {
+        return dish.getAvailableQuantity();
+    }
+
+    @Benchmark
+    public Double totalIngredientsCost() {
+        return dish.getTotalIngredientsCost();
+    }
+}
@@ -0,0 +1,36 @@
+package edu.hei.school.restaurant.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+
+// Ingredient.getActualPrice / getPriceAt en fonction du nombre de prix enregistrés
+@State(Scope.Benchmark)
+public class IngredientPriceBenchmark {
+    @Param({"1", "100", "10000"})
+    public int priceCount;
+
+    private Ingredient ingredient;
+    private LocalDate middleDate;
+
+    @Setup
+    public void setUp() {
+        ingredient = ModelFixtures.ingredient(1, 0, priceCount, false);
+        // Milieu de l'historique : oblige une recherche du prix en vigueur à cette date
+        middleDate = LocalDate.of(2020, 1, 1).plusDays(priceCount / 2);
+    }
+
+    @Benchmark
+    public Double actualPrice() {
+        return ingredient.getActualPrice();
+    }
+
+    @Benchmark
+    public Double priceAt() {
+        return ingredient.getPriceAt(middleDate);
+    }
+}
@@ -0,0 +1,41 @@
+package edu.hei.school.restaurant.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Instant;
+
+// Ingredient.getAvailableQuantityAt en fonction de la taille du registre de mouvements,
+// avec ou sans checkpoints de solde
+@State(Scope.Benchmark)
+public class IngredientStockBenchmark {
+    @Param({"100", "10000", "100000"})
+    public int ledgerSize;
+
+    @Param({"false", "true"})
+    public boolean checkpointed;
+
+    private Ingredient ingredient;
+    private Instant now;
+    private Instant middle;
+
+    @Setup
+    public void setUp() {
+        ingredient = ModelFixtures.ingredient(1, ledgerSize, 10, checkpointed);
+        now = ModelFixtures.endOfLedger(ledgerSize);
+        middle = ModelFixtures.endOfLedger(ledgerSize / 2);
+    }
+
+    @Benchmark
+    public Double availableQuantityNow() {
+        return ingredient.getAvailableQuantityAt(now);
+    }
+
+    @Benchmark
+    public Double availableQuantityInThePast() {
+        return ingredient.getAvailableQuantityAt(middle);
+    }
+}
@@ -0,0 +1,122 @@
+package edu.hei.school.restaurant.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Jeux de données déterministes (graine fixe) pour les benchmarks du modèle.
+ */
+public final class ModelFixtures {
+    public static final Instant LEDGER_START = Instant.parse("2024-01-01T00:00:00Z");
+
+    private ModelFixtures() {
+    }
+
+    // Ingrédient avec ledgerSize mouvements chronologiques (une livraison IN pour 9 sorties OUT)
+    // et un checkpoint par jour si checkpointed
+    public static Ingredient ingredient(long id, int ledgerSize, int priceCount, boolean checkpointed) {
+        Random random = new Random(id);
+        List<StockMovement> stockMovements = new ArrayList<>(ledgerSize);
+        List<StockBalanceCheckpoint> checkpoints = new ArrayList<>();
+        double balance = 0;
+        Instant lastCheckpointDay = null;
+        for (int i = 0; i < ledgerSize; i++) {
+            Instant creation = LEDGER_START.plus(i * 10L, ChronoUnit.MINUTES);
+            Instant day = creation.truncatedTo(ChronoUnit.DAYS);
+            if (checkpointed && lastCheckpointDay != null && !day.equals(lastCheckpointDay)) {
+                checkpoints.add(StockBalanceCheckpoint.builder()
+                        .id((long) checkpoints.size() + 1)
+                        .checkpointDatetime(day.minusNanos(1000))
+                        .balance(balance)
+                        .build());
+            }
+            lastCheckpointDay = day;
+
+            boolean in = i % 10 == 0;
+            double quantity = in ? 500 + random.nextInt(500) : 1 + random.nextInt(20);
+            balance += in ? quantity : -quantity;
+            stockMovements.add(StockMovement.builder()
+                    .id((long) i + 1)
+                    .quantity(quantity)
+                    .unit(Unit.G)
+                    .movementType(in ? StockMovementType.IN : StockMovementType.OUT)
+                    .creationDatetime(creation)
+                    .build());
+        }
+
+        List<Price> prices = new ArrayList<>(priceCount);
+        for (int i = 0; i < priceCount; i++) {
+            prices.add(Price.builder()
+                    .id((long) i + 1)
+                    .amount(100.0 + random.nextInt(1000))
+                    .dateValue(LocalDate.of(2020, 1, 1).plusDays(i))
+                    .build());
+        }
+
+        return Ingredient.builder()
+                .id(id)
+                .name("Ingredient " + id)
+                .prices(prices)
+                .stockMovements(stockMovements)
+                .stockBalanceCheckpoints(checkpoints)
+                .build();
+    }
+
+    public static Instant endOfLedger(int ledgerSize) {
+        return LEDGER_START.plus(ledgerSize * 10L, ChronoUnit.MINUTES);
+    }
+
+    public static Dish dish(long id, int recipeSize, int ledgerSize, int priceCount, boolean checkpointed) {
+        List<DishIngredient> dishIngredients = new ArrayList<>(recipeSize);
+        for (int i = 0; i < recipeSize; i++) {
+            dishIngredients.add(DishIngredient.builder()
+                    .id((long) i + 1)
+                    .ingredient(ingredient(id * 1_000 + i, ledgerSize, priceCount, checkpointed))
+                    .requiredQuantity(1.0 + i % 5)
+                    .unit(Unit.G)
+                    .build());
+        }
+        return Dish.builder()
+                .id(id)
+                .name("Dish " + id)
+                .price(15_000.0)
+                .dishIngredients(dishIngredients)
+                .build();
+    }
+
+    // Commande de orderLines lignes, toutes au statut dishStatus, avec l'historique correspondant
+    public static Order order(int orderLines, OrderStatus status, DishOrderStatus dishStatus) {
+        LocalDateTime created = LocalDateTime.of(2025, 1, 1, 12, 0);
+        Order order = Order.builder()
+                .id(1L)
+                .reference("BENCH-" + orderLines)
+                .creationDateTime(created)
+                .status(status)
+                .statusHistory(new ArrayList<>(List.of(
+                        OrderStatusHistory.builder().id(1L).status(OrderStatus.CREE).statusDateTime(created).build(),
+                        OrderStatusHistory.builder().id(2L).status(status).statusDateTime(created.plusMinutes(5)).build())))
+                .build();
+
+        List<DishOrder> dishOrders = new ArrayList<>(orderLines);
+        for (int i = 0; i < orderLines; i++) {
+            Dish dish = Dish.builder().id((long) i % 60 + 1).name("Dish " + (i % 60 + 1)).price(5_000.0 + i % 7 * 1_000).build();
+            dishOrders.add(DishOrder.builder()
+                    .id((long) i + 1)
+                    .order(new Order(order.getId()))
+                    .dish(dish)
+                    .quantity(1 + i % 3)
+                    .status(dishStatus)
+                    .statusHistory(new ArrayList<>(List.of(
+                            DishOrderStatusHistory.builder().id((long) i * 2 + 1).status(DishOrderStatus.CREE).statusDateTime(created).build(),
+                            DishOrderStatusHistory.builder().id((long) i * 2 + 2).status(dishStatus).statusDateTime(created.plusMinutes(5)).build())))
+                    .build());
+        }
+        order.setDishOrders(dishOrders);
+        return order;
+    }
+}
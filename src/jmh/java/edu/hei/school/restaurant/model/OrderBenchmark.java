@@ -0,0 +1,37 @@
+package edu.hei.school.restaurant.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Order.getTotalAmount / updateStatus en fonction du nombre de lignes de la commande
+@State(Scope.Benchmark)
+public class OrderBenchmark {
+    @Param({"1", "10", "100"})
+    public int orderLines;
+
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        // CONFIRME -> EN_PREPARATION parcourt toutes les lignes
+        order = ModelFixtures.order(orderLines, OrderStatus.CONFIRME, DishOrderStatus.CONFIRME);
+    }
+
+    @Benchmark
+    public Double totalAmount() {
+        return order.getTotalAmount();
+    }
+
+    // Passage CONFIRME -> EN_PREPARATION par l'API publique ; la commande est remise à CONFIRME
+    // à chaque appel, l'historique ne grossit pas d'une mesure à l'autre
+    @Benchmark
+    public OrderStatus updateStatus() {
+        order.setStatus(OrderStatus.CONFIRME);
+        order.updateStatus(OrderStatus.EN_PREPARATION);
+        order.getStatusHistory().removeLast();
+        return order.getStatus();
+    }
+}
@@ -2,8 +2,10 @@ package edu.hei.school.restaurant;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class Restaurant2025ApiApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,94 @@
+package edu.hei.school.restaurant.dao;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Écriture de lignes au format texte de {@code COPY ... FROM STDIN} (tabulation, \N pour NULL),
+ * envoyées au serveur par blocs d'environ 1 Mo. Les valeurs sont échappées (antislash,
+ * tabulation, retours à la ligne) : elles peuvent venir d'un client.
+ * <p>
+ * La connexion doit être celle du pilote PostgreSQL (ou une enveloppe qui la déballe).
+ */
+public class CopyWriter implements AutoCloseable {
+    private static final int FLUSH_THRESHOLD = 1 << 20;
+
+    private final CopyIn copyIn;
+    private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD + 1024);
+    private boolean firstField = true;
+
+    public CopyWriter(Connection connection, String table, String columns) throws SQLException {
+        this.copyIn = connection.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn("COPY " + table + " (" + columns + ") FROM STDIN");
+    }
+
+    public CopyWriter field(long value) {
+        separator();
+        buffer.append(value);
+        return this;
+    }
+
+    public CopyWriter field(double value) {
+        separator();
+        buffer.append(value);
+        return this;
+    }
+
+    public CopyWriter field(Object value) {
+        separator();
+        if (value == null) {
+            buffer.append("\\N");
+            return this;
+        }
+        String text = value.toString();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\' -> buffer.append("\\\\");
+                case '\t' -> buffer.append("\\t");
+                case '\n' -> buffer.append("\\n");
+                case '\r' -> buffer.append("\\r");
+                default -> buffer.append(c);
+            }
+        }
+        return this;
+    }
+
+    public void endRow() throws SQLException {
+        buffer.append('\n');
+        firstField = true;
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            flush();
+        }
+    }
+
+    private void separator() {
+        if (!firstField) {
+            buffer.append('\t');
+        }
+        firstField = false;
+    }
+
+    private void flush() throws SQLException {
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (copyIn.isActive()) {
+            flush();
+            copyIn.endCopy();
+        }
+    }
+
+    // Nombre de lignes chargées, connu après close()
+    public long rowCount() {
+        return copyIn.getHandledRowCount();
+    }
+}
@@ -0,0 +1,89 @@
+package edu.hei.school.restaurant.dao;
+
+import edu.hei.school.restaurant.model.CursorPage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Mesure chaque méthode publique des *CrudOperations :
+ * <ul>
+ *     <li>{@code restaurant.dao.operation} : timer (histogramme de latence) par classe, méthode et issue</li>
+ *     <li>{@code restaurant.dao.rows} : nombre d'entités retournées (taille des listes, 1 par objet)</li>
+ *     <li>{@code restaurant.dao.errors} : exceptions levées, par type</li>
+ * </ul>
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class CrudOperationsMetrics {
+    private final MeterRegistry meterRegistry;
+
+    @Around("execution(public * edu.hei.school.restaurant.dao.operations.*CrudOperations.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        String repository = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            Object result = joinPoint.proceed();
+            sample.stop(timer(repository, method, "success"));
+            long rows = rowCount(result);
+            if (rows >= 0) {
+                Counter.builder("restaurant.dao.rows")
+                        .description("Entities mapped by *CrudOperations methods")
+                        .tags("repository", repository, "method", method)
+                        .register(meterRegistry)
+                        .increment(rows);
+            }
+            return result;
+        } catch (Throwable e) {
+            sample.stop(timer(repository, method, "error"));
+            Counter.builder("restaurant.dao.errors")
+                    .description("Exceptions thrown by *CrudOperations methods")
+                    .tags("repository", repository, "method", method, "exception", e.getClass().getSimpleName())
+                    .register(meterRegistry)
+                    .increment();
+            throw e;
+        }
+    }
+
+    private Timer timer(String repository, String method, String outcome) {
+        return Timer.builder("restaurant.dao.operation")
+                .description("Latency of *CrudOperations methods")
+                .tags("repository", repository, "method", method, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    // -1 : la méthode ne retourne pas d'entités (void, compteur, booléen...)
+    private static long rowCount(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        if (result instanceof CursorPage<?> page) {
+            return page.getItems() == null ? 0 : page.getItems().size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        if (result instanceof Number || result instanceof Boolean || result instanceof Enum<?>) {
+            return -1;
+        }
+        return 1;
+    }
+}
@@ -1,12 +1,20 @@
 package edu.hei.school.restaurant.dao;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import edu.hei.school.restaurant.service.exception.ServerException;
 import io.github.cdimascio.dotenv.Dotenv;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 @Configuration
 public class DataSource {
@@ -18,19 +26,148 @@ public class DataSource {
     private final String database = dotenv.get("DATABASE_NAME");
     private final String jdbcUrl;
 
-    public DataSource() {
+    // Pool de connexions : toutes les *CrudOperations passent par getConnection(),
+    // close() rend la connexion au pool au lieu de fermer la socket.
+    private final HikariDataSource pool;
+
+    // Limiteur de concurrence (file FIFO) devant le pool : avec des threads virtuels, des milliers
+    // de requêtes simultanées attendent ici un permis au lieu de se ruer sur le pool.
+    // Un permis par connexion empruntée, rendu à sa fermeture. null si désactivé : avec des
+    // threads de plateforme, la file d'attente de Hikari suffit.
+    private final Semaphore concurrencyLimiter;
+    private final int concurrencyLimit;
+    private final long connectionTimeoutMillis;
+    private final LongAdder limiterRejections = new LongAdder();
+
+    // Statistiques d'acquisition (en nanosecondes)
+    private final LongAdder acquisitionCount = new LongAdder();
+    private final LongAdder acquisitionTimeNanos = new LongAdder();
+    private final LongAccumulator maxAcquisitionTimeNanos = new LongAccumulator(Long::max, 0);
+    private final LongAdder acquisitionFailures = new LongAdder();
+
+    public DataSource(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         jdbcUrl = "jdbc:postgresql://" + host + ":" + port + "/" + database;
         System.out.println("JDBC URL: " + jdbcUrl);
         System.out.println("User: " + user);
         System.out.println("Host: " + host);
         System.out.println("Database: " + database);
+
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("restaurant-pool");
+        config.setJdbcUrl(jdbcUrl);
+        config.setUsername(user);
+        config.setPassword(password);
+        config.setMaximumPoolSize(intSetting("DATABASE_POOL_MAX_SIZE", 10));
+        config.setMinimumIdle(intSetting("DATABASE_POOL_MIN_IDLE", 2));
+        // Temps d'attente maximal d'une connexion libre avant échec
+        connectionTimeoutMillis = longSetting("DATABASE_POOL_CONNECTION_TIMEOUT_MS", 5_000);
+        config.setConnectionTimeout(connectionTimeoutMillis);
+        // Validation (Connection.isValid) avant de rendre une connexion inactive depuis longtemps
+        config.setValidationTimeout(longSetting("DATABASE_POOL_VALIDATION_TIMEOUT_MS", 1_000));
+        config.setKeepaliveTime(longSetting("DATABASE_POOL_KEEPALIVE_MS", 120_000));
+        config.setIdleTimeout(longSetting("DATABASE_POOL_IDLE_TIMEOUT_MS", 300_000));
+        config.setMaxLifetime(longSetting("DATABASE_POOL_MAX_LIFETIME_MS", 1_800_000));
+        // Trace une alerte si une connexion n'est pas rendue au pool dans ce délai
+        config.setLeakDetectionThreshold(longSetting("DATABASE_POOL_LEAK_DETECTION_MS", 30_000));
+        // Ne pas bloquer le démarrage si la base n'est pas encore joignable
+        config.setInitializationFailTimeout(-1);
+        config.setRegisterMbeans(false);
+        pool = new HikariDataSource(config);
+
+        // Par défaut la taille du pool avec des threads virtuels, désactivé (0) sinon
+        concurrencyLimit = intSetting("DATABASE_MAX_CONCURRENCY", virtualThreads ? config.getMaximumPoolSize() : 0);
+        concurrencyLimiter = concurrencyLimit > 0 ? new Semaphore(concurrencyLimit, true) : null;
     }
 
     public Connection getConnection() {
+        long start = System.nanoTime();
+        boolean permitHeld = false;
         try {
-            return DriverManager.getConnection(jdbcUrl, user, password);
+            if (concurrencyLimiter != null) {
+                if (!concurrencyLimiter.tryAcquire(connectionTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    limiterRejections.increment();
+                    acquisitionFailures.increment();
+                    throw new ServerException("Database concurrency limit (" + concurrencyLimit
+                            + ") reached, no permit after " + connectionTimeoutMillis + " ms");
+                }
+                permitHeld = true;
+            }
+            Connection connection = pool.getConnection();
+            if (concurrencyLimiter != null) {
+                connection = PermitReleasingConnection.wrap(connection, concurrencyLimiter);
+                permitHeld = false;
+            }
+            long elapsed = System.nanoTime() - start;
+            acquisitionCount.increment();
+            acquisitionTimeNanos.add(elapsed);
+            maxAcquisitionTimeNanos.accumulate(elapsed);
+            // Requête HTTP suivie (QueryStatisticsFilter) : connexion instrumentée
+            QueryStatistics statistics = QueryStatistics.current();
+            if (statistics != null) {
+                statistics.connectionOpened();
+                return QueryStatisticsProxy.wrap(connection, statistics);
+            }
+            return connection;
         } catch (SQLException e) {
+            acquisitionFailures.increment();
+            throw new ServerException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquisitionFailures.increment();
             throw new ServerException(e);
+        } finally {
+            if (permitHeld) {
+                concurrencyLimiter.release();
+            }
         }
     }
+
+    public PoolStatistics getPoolStatistics() {
+        HikariPoolMXBean poolBean = pool.getHikariPoolMXBean();
+        long count = acquisitionCount.sum();
+        return PoolStatistics.builder()
+                .maximumPoolSize(pool.getMaximumPoolSize())
+                .activeConnections(poolBean != null ? poolBean.getActiveConnections() : 0)
+                .idleConnections(poolBean != null ? poolBean.getIdleConnections() : 0)
+                .totalConnections(poolBean != null ? poolBean.getTotalConnections() : 0)
+                .threadsAwaitingConnection(poolBean != null ? poolBean.getThreadsAwaitingConnection() : 0)
+                .acquisitionCount(count)
+                .acquisitionFailures(acquisitionFailures.sum())
+                .averageAcquisitionMillis(count == 0 ? 0.0 : acquisitionTimeNanos.sum() / (double) count / 1_000_000)
+                .maxAcquisitionMillis(maxAcquisitionTimeNanos.get() / 1_000_000.0)
+                .concurrencyLimit(concurrencyLimit)
+                .threadsAwaitingPermit(concurrencyLimiter != null ? concurrencyLimiter.getQueueLength() : 0)
+                .limiterRejections(limiterRejections.sum())
+                .build();
+    }
+
+    // Cumuls exposés en métriques (DataSourceMetrics)
+    public long getAcquisitionCount() {
+        return acquisitionCount.sum();
+    }
+
+    public long getAcquisitionTimeNanos() {
+        return acquisitionTimeNanos.sum();
+    }
+
+    public long getAcquisitionFailures() {
+        return acquisitionFailures.sum();
+    }
+
+    public long getLimiterRejections() {
+        return limiterRejections.sum();
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.close();
+    }
+
+    private int intSetting(String key, int defaultValue) {
+        return Integer.parseInt(dotenv.get(key, String.valueOf(defaultValue)));
+    }
+
+    private long longSetting(String key, long defaultValue) {
+        return Long.parseLong(dotenv.get(key, String.valueOf(defaultValue)));
+    }
 }
@@ -0,0 +1,67 @@
+package edu.hei.school.restaurant.dao;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Expose les statistiques du pool de {@link DataSource} (les mêmes que /health/pool) :
+ * temps d'acquisition d'une connexion, échecs, et jauges de saturation du pool.
+ */
+@Component
+@RequiredArgsConstructor
+public class DataSourceMetrics implements MeterBinder {
+    private final DataSource dataSource;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionTimer.builder("restaurant.db.connection.acquisition", dataSource,
+                        DataSource::getAcquisitionCount,
+                        DataSource::getAcquisitionTimeNanos, TimeUnit.NANOSECONDS)
+                .description("Time spent waiting for a pooled connection")
+                .register(registry);
+        Gauge.builder("restaurant.db.connection.acquisition.max", dataSource,
+                        source -> source.getPoolStatistics().getMaxAcquisitionMillis())
+                .description("Longest connection acquisition since startup")
+                .baseUnit("milliseconds")
+                .register(registry);
+        FunctionCounter.builder("restaurant.db.connection.acquisition.failures", dataSource,
+                        DataSource::getAcquisitionFailures)
+                .description("Connection acquisitions that timed out or failed")
+                .register(registry);
+
+        poolGauge(registry, "restaurant.db.pool.max", "Maximum pool size",
+                statistics -> statistics.getMaximumPoolSize());
+        poolGauge(registry, "restaurant.db.pool.active", "Connections in use",
+                statistics -> statistics.getActiveConnections());
+        poolGauge(registry, "restaurant.db.pool.idle", "Idle connections",
+                statistics -> statistics.getIdleConnections());
+        poolGauge(registry, "restaurant.db.pool.open", "Open connections (active + idle)",
+                statistics -> statistics.getTotalConnections());
+        poolGauge(registry, "restaurant.db.pool.pending", "Threads waiting for a connection",
+                statistics -> statistics.getThreadsAwaitingConnection());
+        poolGauge(registry, "restaurant.db.limiter.pending", "Threads waiting for a database concurrency permit",
+                statistics -> statistics.getThreadsAwaitingPermit());
+        FunctionCounter.builder("restaurant.db.limiter.rejections", dataSource, DataSource::getLimiterRejections)
+                .description("Requests that got no database concurrency permit in time")
+                .register(registry);
+        // Saturation : part des connexions du pool en cours d'utilisation (0 à 1)
+        poolGauge(registry, "restaurant.db.pool.usage", "Active connections / maximum pool size",
+                statistics -> statistics.getMaximumPoolSize() == 0 ? 0.0
+                        : statistics.getActiveConnections() / (double) statistics.getMaximumPoolSize());
+    }
+
+    private void poolGauge(MeterRegistry registry, String name, String description,
+                           ToDoubleFunction<PoolStatistics> value) {
+        Gauge.builder(name, dataSource, source -> value.applyAsDouble(source.getPoolStatistics()))
+                .description(description)
+                .register(registry);
+    }
+}
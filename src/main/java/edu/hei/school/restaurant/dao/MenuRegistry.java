@@ -0,0 +1,128 @@
+package edu.hei.school.restaurant.dao;
+
+import edu.hei.school.restaurant.dao.mapper.DishIngredientMapper;
+import edu.hei.school.restaurant.model.Dish;
+import edu.hei.school.restaurant.model.DishIngredient;
+import edu.hei.school.restaurant.model.Ingredient;
+import edu.hei.school.restaurant.service.exception.ServerException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Carte des plats (plat, prix, recette) gardée en mémoire pour les chemins de commande.
+ * Le snapshot est immuable et remplacé en bloc (copy-on-write) : la lecture est un simple
+ * accès à une Map, sans verrou ni requête. Il est reconstruit par DishCrudOperations
+ * après chaque écriture sur dish / dish_ingredient, et chargé au premier accès.
+ * Les ingrédients de la recette ne portent que leur id et leur nom (ni prix ni mouvements de stock).
+ */
+@Component
+@RequiredArgsConstructor
+public class MenuRegistry {
+    private final DataSource dataSource;
+    private final DishIngredientMapper dishIngredientMapper;
+
+    private final AtomicReference<Map<Long, Dish>> snapshot = new AtomicReference<>();
+    // Verrou plutôt que synchronized : un thread virtuel bloqué sur JDBC sous synchronized
+    // immobiliserait son thread porteur
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    // Retourne une copie du plat : le snapshot partagé n'est jamais exposé
+    public Optional<Dish> findById(Long dishId) {
+        Map<Long, Dish> menu = snapshot.get();
+        if (menu == null) {
+            menu = reload();
+        }
+        return Optional.ofNullable(menu.get(dishId)).map(MenuRegistry::copy);
+    }
+
+    // Recharge toute la carte en deux requêtes puis publie le nouveau snapshot.
+    // Les reconstructions sont sérialisées pour que la dernière publiée soit la plus récente.
+    public Map<Long, Dish> reload() {
+        reloadLock.lock();
+        try {
+            return load();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private Map<Long, Dish> load() {
+        Map<Long, Dish> dishes = new HashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT d.id, d.name, d.price FROM dish d");
+                 ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    Dish dish = Dish.builder()
+                            .id(resultSet.getLong("id"))
+                            .name(resultSet.getString("name"))
+                            .price(resultSet.getDouble("price"))
+                            .dishIngredients(new ArrayList<>())
+                            .build();
+                    dishes.put(dish.getId(), dish);
+                }
+            }
+
+            String recipeSql = """
+                SELECT di.id_dish, di.id AS dish_ingredient_id, di.required_quantity, di.unit,
+                       i.id, i.name
+                FROM dish_ingredient di
+                JOIN ingredient i ON i.id = di.id_ingredient
+                ORDER BY di.id_dish, di.id
+                """;
+            try (PreparedStatement statement = connection.prepareStatement(recipeSql);
+                 ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    Dish dish = dishes.get(resultSet.getLong("id_dish"));
+                    if (dish == null) {
+                        continue;
+                    }
+                    Ingredient ingredient = Ingredient.builder()
+                            .id(resultSet.getLong("id"))
+                            .name(resultSet.getString("name"))
+                            .build();
+                    dish.getDishIngredients().add(dishIngredientMapper.apply(resultSet, ingredient));
+                }
+            }
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+
+        dishes.values().forEach(dish -> dish.setDishIngredients(List.copyOf(dish.getDishIngredients())));
+        Map<Long, Dish> menu = Map.copyOf(dishes);
+        snapshot.set(menu);
+        return menu;
+    }
+
+    private static Dish copy(Dish dish) {
+        List<DishIngredient> dishIngredients = new ArrayList<>(dish.getDishIngredients().size());
+        for (DishIngredient dishIngredient : dish.getDishIngredients()) {
+            dishIngredients.add(DishIngredient.builder()
+                    .id(dishIngredient.getId())
+                    .ingredient(Ingredient.builder()
+                            .id(dishIngredient.getIngredient().getId())
+                            .name(dishIngredient.getIngredient().getName())
+                            .build())
+                    .requiredQuantity(dishIngredient.getRequiredQuantity())
+                    .unit(dishIngredient.getUnit())
+                    .build());
+        }
+        return Dish.builder()
+                .id(dish.getId())
+                .name(dish.getName())
+                .price(dish.getPrice())
+                .dishIngredients(dishIngredients)
+                .build();
+    }
+}
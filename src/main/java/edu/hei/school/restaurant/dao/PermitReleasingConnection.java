@@ -0,0 +1,33 @@
+package edu.hei.school.restaurant.dao;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Connexion qui rend son permis au limiteur de concurrence de {@link DataSource}
+ * à sa fermeture (une seule fois, même si close() est appelé plusieurs fois).
+ */
+final class PermitReleasingConnection {
+
+    private PermitReleasingConnection() {
+    }
+
+    static Connection wrap(Connection connection, Semaphore limiter) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    } finally {
+                        if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+                            limiter.release();
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,26 @@
+package edu.hei.school.restaurant.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class PoolStatistics {
+    private int maximumPoolSize;
+    private int activeConnections;
+    private int idleConnections;
+    private int totalConnections;
+    private int threadsAwaitingConnection;
+    private long acquisitionCount;
+    private long acquisitionFailures;
+    private double averageAcquisitionMillis;
+    private double maxAcquisitionMillis;
+    // Limiteur de concurrence (DATABASE_MAX_CONCURRENCY, 0 = désactivé)
+    private int concurrencyLimit;
+    private int threadsAwaitingPermit;
+    private long limiterRejections;
+}
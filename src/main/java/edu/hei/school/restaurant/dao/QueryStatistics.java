@@ -0,0 +1,74 @@
+package edu.hei.school.restaurant.dao;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compteurs JDBC d'une requête HTTP : connexions obtenues, ordres SQL exécutés, temps passé
+ * en base et nombre d'exécutions de chaque ordre SQL (détection des boucles N+1).
+ * <p>
+ * Rattachés au thread courant entre {@link #start()} et {@link #stop()} ; pendant ce temps
+ * {@link DataSource#getConnection()} retourne des connexions instrumentées.
+ */
+public class QueryStatistics {
+    private static final ThreadLocal<QueryStatistics> CURRENT = new ThreadLocal<>();
+
+    private int connections;
+    private int statements;
+    private long databaseTimeNanos;
+    private final Map<String, Integer> executionsBySql = new HashMap<>();
+
+    public static QueryStatistics start() {
+        QueryStatistics statistics = new QueryStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    // null hors d'une requête suivie
+    public static QueryStatistics current() {
+        return CURRENT.get();
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    void connectionOpened() {
+        connections++;
+    }
+
+    void statementExecuted(String sql, long elapsedNanos) {
+        statements++;
+        databaseTimeNanos += elapsedNanos;
+        executionsBySql.merge(sql != null ? sql : "?", 1, Integer::sum);
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public double getDatabaseTimeMillis() {
+        return databaseTimeNanos / 1_000_000.0;
+    }
+
+    // Ordres SQL identiques exécutés au moins threshold fois, du plus répété au moins répété
+    public Map<String, Integer> repeatedStatements(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        executionsBySql.entrySet().stream()
+                .filter(entry -> entry.getValue() >= threshold)
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .forEach(entry -> repeated.put(entry.getKey(), entry.getValue()));
+        return repeated;
+    }
+
+    public String summary(int repeatedThreshold) {
+        return String.format(Locale.ROOT, "statements=%d;connections=%d;db-time-ms=%.2f;repeated=%d",
+                statements, connections, getDatabaseTimeMillis(), repeatedStatements(repeatedThreshold).size());
+    }
+}
@@ -0,0 +1,57 @@
+package edu.hei.school.restaurant.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Enveloppes JDBC qui alimentent {@link QueryStatistics} : la connexion instrumente les
+ * Statement qu'elle crée, et chaque execute* est chronométré et compté avec son SQL.
+ */
+final class QueryStatisticsProxy {
+
+    private QueryStatisticsProxy() {
+    }
+
+    static Connection wrap(Connection connection, QueryStatistics statistics) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    // prepareStatement / prepareCall / createStatement
+                    if (result instanceof Statement statement && method.getReturnType().isInterface()) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                        return wrapStatement(statement, method.getReturnType(), sql, statistics);
+                    }
+                    return result;
+                });
+    }
+
+    private static Object wrapStatement(Statement statement, Class<?> type, String preparedSql,
+                                        QueryStatistics statistics) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+            // Statement.execute(sql) porte son SQL, PreparedStatement.execute() celui de la préparation
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+            long start = System.nanoTime();
+            try {
+                return invoke(statement, method, args);
+            } finally {
+                statistics.statementExecuted(sql, System.nanoTime() - start);
+            }
+        };
+        return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
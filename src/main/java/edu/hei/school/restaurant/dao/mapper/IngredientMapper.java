@@ -1,36 +1,22 @@
 package edu.hei.school.restaurant.dao.mapper;
 
 import edu.hei.school.restaurant.model.Ingredient;
-import edu.hei.school.restaurant.model.Price;
-import edu.hei.school.restaurant.model.StockMovement;
-import edu.hei.school.restaurant.dao.operations.PriceCrudOperations;
-import edu.hei.school.restaurant.dao.operations.StockMovementCrudOperations;
-import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import org.springframework.stereotype.Component;
 
 import java.sql.ResultSet;
-import java.util.List;
 import java.util.function.Function;
 
+// Propriétés de base uniquement : prix, checkpoint et mouvements sont chargés par lot
+// dans IngredientCrudOperations, pour tous les ingrédients d'une même lecture
 @Component
-@RequiredArgsConstructor
 public class IngredientMapper implements Function<ResultSet, Ingredient> {
-    private final PriceCrudOperations priceCrudOperations;
-    private final StockMovementCrudOperations stockMovementCrudOperations;
-
     @SneakyThrows
     @Override
     public Ingredient apply(ResultSet resultSet) {
-        Long idIngredient = resultSet.getLong("id");
-        List<Price> ingredientPrices = priceCrudOperations.findByIdIngredient(idIngredient);
-        List<StockMovement> ingredientStockMovements = stockMovementCrudOperations.findByIdIngredient(idIngredient);
-
         Ingredient ingredient = new Ingredient();
-        ingredient.setId(idIngredient);
+        ingredient.setId(resultSet.getLong("id"));
         ingredient.setName(resultSet.getString("name"));
-        ingredient.setPrices(ingredientPrices);
-        ingredient.setStockMovements(ingredientStockMovements);
         return ingredient;
     }
 }
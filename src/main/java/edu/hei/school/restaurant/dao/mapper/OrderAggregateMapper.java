@@ -0,0 +1,110 @@
+package edu.hei.school.restaurant.dao.mapper;
+
+import edu.hei.school.restaurant.model.Dish;
+import edu.hei.school.restaurant.model.DishOrder;
+import edu.hei.school.restaurant.model.DishOrderStatus;
+import edu.hei.school.restaurant.model.DishOrderStatusHistory;
+import edu.hei.school.restaurant.model.Order;
+import edu.hei.school.restaurant.model.OrderStatus;
+import edu.hei.school.restaurant.model.OrderStatusHistory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Construit un {@link Order} complet (historique de statuts, lignes de plats et
+ * historique de chaque ligne) à partir du résultat de la requête agrégée de
+ * {@code OrderCrudOperations} : une ligne par plat commandé, les historiques étant
+ * portés par des colonnes tableaux (array_agg).
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderAggregateMapper {
+    private final OrderMapper orderMapper;
+
+    /**
+     * Consomme toutes les lignes du ResultSet (qui doit être positionné avant la première ligne).
+     * Retourne null si la commande n'existe pas.
+     */
+    public Order apply(ResultSet resultSet) {
+        try {
+            Order order = null;
+            List<DishOrder> dishOrders = new ArrayList<>();
+            while (resultSet.next()) {
+                if (order == null) {
+                    order = orderMapper.apply(resultSet);
+                    order.setStatusHistory(mapOrderStatusHistory(resultSet));
+                }
+                long dishOrderId = resultSet.getLong("dish_order_id");
+                if (!resultSet.wasNull()) {
+                    dishOrders.add(mapDishOrder(resultSet, order, dishOrderId));
+                }
+            }
+            if (order != null) {
+                order.setDishOrders(dishOrders);
+            }
+            return order;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error mapping Order aggregate", e);
+        }
+    }
+
+    private List<OrderStatusHistory> mapOrderStatusHistory(ResultSet resultSet) throws SQLException {
+        Object[] ids = toArray(resultSet.getArray("status_ids"));
+        Object[] statuses = toArray(resultSet.getArray("statuses"));
+        Object[] dateTimes = toArray(resultSet.getArray("status_datetimes"));
+
+        List<OrderStatusHistory> history = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            history.add(OrderStatusHistory.builder()
+                    .id(((Number) ids[i]).longValue())
+                    .status(OrderStatus.valueOf((String) statuses[i]))
+                    .statusDateTime(((Timestamp) dateTimes[i]).toLocalDateTime())
+                    .build());
+        }
+        return history;
+    }
+
+    private DishOrder mapDishOrder(ResultSet resultSet, Order order, long dishOrderId) throws SQLException {
+        Dish dish = Dish.builder()
+                .id(resultSet.getLong("dish_id"))
+                .name(resultSet.getString("name"))
+                .price(resultSet.getDouble("price"))
+                .build();
+
+        String currentStatus = resultSet.getString("current_status");
+        DishOrder dishOrder = DishOrder.builder()
+                .id(dishOrderId)
+                .order(new Order(order.getId()))
+                .dish(dish)
+                .quantity(resultSet.getInt("quantity"))
+                .status(currentStatus != null ? DishOrderStatus.valueOf(currentStatus) : DishOrderStatus.CREE)
+                .build();
+
+        Object[] ids = toArray(resultSet.getArray("history_ids"));
+        Object[] statuses = toArray(resultSet.getArray("history_statuses"));
+        Object[] dateTimes = toArray(resultSet.getArray("history_datetimes"));
+
+        List<DishOrderStatusHistory> history = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            history.add(DishOrderStatusHistory.builder()
+                    .id(((Number) ids[i]).longValue())
+                    .status(DishOrderStatus.valueOf((String) statuses[i]))
+                    .statusDateTime(((Timestamp) dateTimes[i]).toLocalDateTime())
+                    .build());
+        }
+        dishOrder.setStatusHistory(history);
+        return dishOrder;
+    }
+
+    // array_agg retourne NULL quand il n'y a aucune ligne à agréger
+    private Object[] toArray(Array array) throws SQLException {
+        return array == null ? new Object[0] : (Object[]) array.getArray();
+    }
+}
@@ -0,0 +1,21 @@
+package edu.hei.school.restaurant.dao.mapper;
+
+import edu.hei.school.restaurant.model.StockBalanceCheckpoint;
+import lombok.SneakyThrows;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.util.function.Function;
+
+@Component
+public class StockBalanceCheckpointMapper implements Function<ResultSet, StockBalanceCheckpoint> {
+    @SneakyThrows
+    @Override
+    public StockBalanceCheckpoint apply(ResultSet resultSet) {
+        StockBalanceCheckpoint checkpoint = new StockBalanceCheckpoint();
+        checkpoint.setId(resultSet.getLong("id"));
+        checkpoint.setCheckpointDatetime(resultSet.getTimestamp("checkpoint_datetime").toInstant());
+        checkpoint.setBalance(resultSet.getDouble("balance"));
+        return checkpoint;
+    }
+}
@@ -5,6 +5,11 @@ import java.util.List;
 public interface CrudOperations<E> {
     List<E> getAll(int page, int size);
 
+    // Pagination par curseur (keyset) : les "size" premières entités d'id strictement
+    // supérieur à afterId (null pour la première page), triées par id.
+    // Le coût d'une page ne dépend pas de sa position, contrairement à LIMIT/OFFSET.
+    List<E> getAllAfter(Long afterId, int size);
+
     E findById(Long id);
 
     // Both create (if does not exist) or update (if exist) entities
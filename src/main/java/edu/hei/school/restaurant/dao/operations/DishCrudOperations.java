@@ -1,19 +1,27 @@
 package edu.hei.school.restaurant.dao.operations;
 
 import edu.hei.school.restaurant.dao.DataSource;
+import edu.hei.school.restaurant.dao.MenuRegistry;
 import edu.hei.school.restaurant.model.Dish;
+import edu.hei.school.restaurant.model.DishAvailability;
 import edu.hei.school.restaurant.model.DishIngredient;
+import edu.hei.school.restaurant.model.Ingredient;
+import edu.hei.school.restaurant.dao.mapper.DishIngredientMapper;
 import edu.hei.school.restaurant.dao.mapper.DishMapper; 
 import edu.hei.school.restaurant.service.exception.ServerException;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -22,34 +30,167 @@ public class DishCrudOperations implements CrudOperations<Dish> {
     private final DataSource dataSource;
     private final DishMapper dishMapper; // Mapper pour convertir ResultSet en Dish
     private final IngredientCrudOperations ingredientCrudOperations;
+    private final DishIngredientMapper dishIngredientMapper;
+    private final MenuRegistry menuRegistry;
+
+    // Plat + recette (ingrédients réduits à id et nom, comme MenuRegistry) en une requête :
+    // une ligne par ingrédient de la recette, regroupées par plat dans mapWithRecipes
+    private static final String DISH_WITH_RECIPE_SELECT = """
+        SELECT d.id, d.name, d.price,
+               di.id AS dish_ingredient_id, di.required_quantity, di.unit,
+               i.id AS ingredient_id, i.name AS ingredient_name
+        FROM dish d
+        LEFT JOIN dish_ingredient di ON di.id_dish = d.id
+        LEFT JOIN ingredient i ON i.id = di.id_ingredient
+        """;
 
     @Override
     public List<Dish> getAll(int page, int size) {
-        List<Dish> dishes = new ArrayList<>();
+        // Validation des paramètres
+        if (page < 0) {
+            throw new IllegalArgumentException("Page number must be >= 0");
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("Page size must be > 0");
+        }
+        String sql = DISH_WITH_RECIPE_SELECT
+                + " WHERE d.id IN (SELECT id FROM dish ORDER BY id ASC LIMIT ? OFFSET ?) ORDER BY d.id, di.id";
         try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(
-                     "SELECT d.id, d.name, d.price FROM dish d ORDER BY d.id ASC LIMIT ? OFFSET ?")) {
-            // Validation des paramètres
-            if (page < 0) {
-                throw new IllegalArgumentException("Page number must be >= 0");
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, size);
+            statement.setInt(2, page * size);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return mapWithRecipes(resultSet);
             }
-            if (size <= 0) {
-                throw new IllegalArgumentException("Page size must be > 0");
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+    }
+
+    @Override
+    public List<Dish> getAllAfter(Long afterId, int size) {
+        String sql = DISH_WITH_RECIPE_SELECT
+                + " WHERE d.id IN (SELECT id FROM dish WHERE id > ? ORDER BY id ASC LIMIT ?) ORDER BY d.id, di.id";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, afterId != null ? afterId : 0L);
+            statement.setInt(2, size);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return mapWithRecipes(resultSet);
             }
-    
-            statement.setInt(1, size);
-            statement.setInt(2, page * size);  // Modification clé ici
-            
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+    }
+
+    // Plats demandés et leur recette en une seule requête (= ANY), triés par id.
+    // Les ids inconnus sont ignorés : l'appelant compare avec sa demande.
+    public List<Dish> findAllByIds(Collection<Long> dishIds) {
+        if (dishIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = DISH_WITH_RECIPE_SELECT + " WHERE d.id = ANY(?) ORDER BY d.id, di.id";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setArray(1, connection.createArrayOf("bigint", dishIds.toArray()));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return mapWithRecipes(resultSet);
+            }
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+    }
+
+    private List<Dish> mapWithRecipes(ResultSet resultSet) throws SQLException {
+        List<Dish> dishes = new ArrayList<>();
+        Dish current = null;
+        while (resultSet.next()) {
+            long dishId = resultSet.getLong("id");
+            if (current == null || current.getId() != dishId) {
+                current = Dish.builder()
+                        .id(dishId)
+                        .name(resultSet.getString("name"))
+                        .price(resultSet.getDouble("price"))
+                        .dishIngredients(new ArrayList<>())
+                        .build();
+                dishes.add(current);
+            }
+            resultSet.getLong("dish_ingredient_id");
+            if (!resultSet.wasNull()) {
+                Ingredient ingredient = Ingredient.builder()
+                        .id(resultSet.getLong("ingredient_id"))
+                        .name(resultSet.getString("ingredient_name"))
+                        .build();
+                current.getDishIngredients().add(dishIngredientMapper.apply(resultSet, ingredient));
+            }
+        }
+        return dishes;
+    }
+
+    // Portions disponibles de chaque plat, calculées en une requête : stock actuel par
+    // ingrédient (dernier checkpoint + SUM(CASE IN/OUT) des mouvements postérieurs), puis
+    // MIN(CEIL(stock / quantité requise)) sur la recette. Mêmes règles que Dish.getAvailableQuantity.
+    // dishIds = null : tous les plats.
+    public List<DishAvailability> findAvailabilities(List<Long> dishIds) {
+        String sql = """
+            WITH recipe AS (
+                SELECT di.id_dish, di.id_ingredient, di.required_quantity
+                FROM dish_ingredient di
+                WHERE ?::bigint[] IS NULL OR di.id_dish = ANY(?)
+            ), stock AS (
+                SELECT i.id_ingredient,
+                       COALESCE(c.balance, 0) + COALESCE(m.delta, 0) AS quantity
+                FROM (SELECT DISTINCT id_ingredient FROM recipe) i
+                LEFT JOIN LATERAL (
+                    SELECT c.balance, c.checkpoint_datetime
+                    FROM stock_balance_checkpoint c
+                    WHERE c.id_ingredient = i.id_ingredient AND c.checkpoint_datetime <= ?
+                    ORDER BY c.checkpoint_datetime DESC
+                    LIMIT 1
+                ) c ON true
+                LEFT JOIN LATERAL (
+                    SELECT SUM(CASE s.movement_type WHEN 'IN' THEN s.quantity
+                                                    WHEN 'OUT' THEN -s.quantity
+                                                    ELSE 0 END) AS delta
+                    FROM stock_movement s
+                    WHERE s.id_ingredient = i.id_ingredient
+                      AND (c.checkpoint_datetime IS NULL OR s.creation_datetime > c.checkpoint_datetime)
+                      AND s.creation_datetime <= ?
+                ) m ON true
+            )
+            SELECT d.id AS dish_id, d.name AS dish_name,
+                   COALESCE(MIN(CEIL(s.quantity / NULLIF(r.required_quantity, 0))), 0) AS available_quantity
+            FROM dish d
+            LEFT JOIN recipe r ON r.id_dish = d.id
+            LEFT JOIN stock s ON s.id_ingredient = r.id_ingredient
+            WHERE ?::bigint[] IS NULL OR d.id = ANY(?)
+            GROUP BY d.id, d.name
+            ORDER BY d.id
+            """;
+        List<DishAvailability> availabilities = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            Array ids = dishIds == null ? null : connection.createArrayOf("bigint", dishIds.toArray());
+            Timestamp now = Timestamp.from(Instant.now());
+            statement.setArray(1, ids);
+            statement.setArray(2, ids);
+            statement.setTimestamp(3, now);
+            statement.setTimestamp(4, now);
+            statement.setArray(5, ids);
+            statement.setArray(6, ids);
             try (ResultSet resultSet = statement.executeQuery()) {
                 while (resultSet.next()) {
-                    Dish dish = dishMapper.apply(resultSet);
-                    dishes.add(dish);
+                    availabilities.add(DishAvailability.builder()
+                            .dishId(resultSet.getLong("dish_id"))
+                            .dishName(resultSet.getString("dish_name"))
+                            .availableQuantity(resultSet.getInt("available_quantity"))
+                            .build());
                 }
-                return dishes;
             }
         } catch (SQLException e) {
             throw new ServerException(e);
         }
+        return availabilities;
     }
 
     
@@ -79,9 +220,14 @@ public Dish findById(Long id) {
         try (Connection connection = dataSource.getConnection()) {
             connection.setAutoCommit(false);
             try {
-                for (Dish dish : entities) {
-                    Dish savedDish = save(dish);
-                    savedDishes.add(savedDish);
+                try {
+                    for (Dish dish : entities) {
+                        Dish savedDish = saveDish(dish);
+                        savedDishes.add(savedDish);
+                    }
+                } finally {
+                    // Une seule reconstruction de la carte pour tout le lot (même en cas d'échec partiel)
+                    menuRegistry.reload();
                 }
                 connection.commit();
                 return savedDishes;
@@ -95,6 +241,14 @@ public Dish findById(Long id) {
     }
 
     public Dish save(Dish dish) {
+        try {
+            return saveDish(dish);
+        } finally {
+            menuRegistry.reload();
+        }
+    }
+
+    private Dish saveDish(Dish dish) {
         try (Connection connection = dataSource.getConnection()) {
             connection.setAutoCommit(false);
             try {
@@ -7,6 +7,7 @@ import edu.hei.school.restaurant.model.DishOrder;
 import edu.hei.school.restaurant.model.DishOrderStatus;
 import edu.hei.school.restaurant.model.DishOrderStatusHistory;
 import edu.hei.school.restaurant.model.DishOrderWithTimestamps;
+import edu.hei.school.restaurant.model.ProcessingTimeStatistics;
 import edu.hei.school.restaurant.service.exception.NotFoundException;
 import edu.hei.school.restaurant.service.exception.ServerException;
 import lombok.RequiredArgsConstructor;
@@ -54,6 +55,45 @@ public class DishOrderCrudOperations implements CrudOperations<DishOrder> {
         }
     }
 
+    @Override
+    public List<DishOrder> getAllAfter(Long afterId, int size) {
+        List<DishOrder> dishOrders = new ArrayList<>();
+        String sql = """
+            SELECT od.id, od.order_id, od.dish_id, od.quantity,
+                   d.name AS name, d.price AS price,
+                   (
+                       SELECT ods.status
+                       FROM order_dish_status ods
+                       WHERE ods.order_dish_id = od.id
+                       ORDER BY ods.status_datetime DESC, ods.id DESC
+                       LIMIT 1
+                   ) AS current_status
+            FROM order_dish od
+            JOIN dish d ON d.id = od.dish_id
+            WHERE od.id > ?
+            ORDER BY od.id
+            LIMIT ?
+            """;
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+
+            statement.setLong(1, afterId != null ? afterId : 0L);
+            statement.setInt(2, size);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    DishOrder dishOrder = dishOrderMapper.apply(resultSet);
+                    dishOrder.setStatusHistory(getStatusHistory(dishOrder.getId()));
+                    dishOrders.add(dishOrder);
+                }
+                return dishOrders;
+            }
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+    }
+
 
     public List<DishOrder> findByOrderId(Long orderId) {
         List<DishOrder> dishOrders = new ArrayList<>();
@@ -438,21 +478,7 @@ String insertSql = """
     }
 
 public List<DishOrderWithTimestamps> findAllWithTimestamps(int page, int size) {
-    String sql = """
-        SELECT 
-            d.id AS dish_id,
-            d.name AS dish_name,
-            o.reference AS order_reference,
-            od.quantity AS quantity_ordered,
-            (SELECT MIN(h.status_date_time) 
-             FROM dish_order_status_history h 
-             WHERE h.dish_order_id = od.id AND h.status = 'EN_PREPARATION') AS in_preparation_date,
-            (SELECT MIN(h.status_date_time) 
-             FROM dish_order_status_history h 
-             WHERE h.dish_order_id = od.id AND h.status = 'TERMINE') AS finished_date
-        FROM order_dish od
-        JOIN dish d ON od.dish_id = d.id
-        JOIN "order" o ON od.order_id = o.id
+    String sql = WITH_TIMESTAMPS_SELECT + """
         ORDER BY od.id
         LIMIT ? OFFSET ?
         """;
@@ -463,24 +489,124 @@ public List<DishOrderWithTimestamps> findAllWithTimestamps(int page, int size) {
         statement.setInt(1, size);
         statement.setInt(2, (page - 1) * size);
         
-        List<DishOrderWithTimestamps> result = new ArrayList<>();
+        return mapWithTimestamps(statement);
+    } catch (SQLException e) {
+        throw new ServerException(e);
+    }
+}
+
+// Version keyset de findAllWithTimestamps : lignes d'id strictement supérieur à afterId
+public List<DishOrderWithTimestamps> findAllWithTimestampsAfter(Long afterId, int size) {
+    String sql = WITH_TIMESTAMPS_SELECT + """
+        WHERE od.id > ?
+        ORDER BY od.id
+        LIMIT ?
+        """;
+
+    try (Connection connection = dataSource.getConnection();
+         PreparedStatement statement = connection.prepareStatement(sql)) {
+
+        statement.setLong(1, afterId != null ? afterId : 0L);
+        statement.setInt(2, size);
+
+        return mapWithTimestamps(statement);
+    } catch (SQLException e) {
+        throw new ServerException(e);
+    }
+}
+
+// Temps de traitement (EN_PREPARATION -> TERMINE) des lignes d'un plat mises en préparation
+// entre from (inclus) et to (exclu), agrégés en une requête : l'historique ne quitte pas la base.
+// null si le plat n'existe pas ; count = 0 et statistiques null si aucune préparation terminée.
+public ProcessingTimeStatistics findProcessingTimeStatistics(Long dishId, LocalDateTime from, LocalDateTime to) {
+    String sql = """
+        SELECT d.id AS dish_id,
+               COUNT(p.seconds) AS count,
+               AVG(p.seconds) AS average,
+               MIN(p.seconds) AS minimum,
+               MAX(p.seconds) AS maximum,
+               percentile_cont(0.5) WITHIN GROUP (ORDER BY p.seconds) AS median,
+               percentile_cont(0.95) WITHIN GROUP (ORDER BY p.seconds) AS percentile_95
+        FROM dish d
+        LEFT JOIN LATERAL (
+            SELECT EXTRACT(EPOCH FROM t.finished - t.started)::double precision AS seconds
+            FROM (
+                SELECT MIN(h.status_date_time) FILTER (WHERE h.status = 'EN_PREPARATION') AS started,
+                       MIN(h.status_date_time) FILTER (WHERE h.status = 'TERMINE') AS finished
+                FROM order_dish od
+                JOIN dish_order_status_history h ON h.dish_order_id = od.id
+                WHERE od.dish_id = d.id
+                  AND h.status IN ('EN_PREPARATION', 'TERMINE')
+                GROUP BY od.id
+            ) t
+            WHERE t.started >= ? AND t.started < ?
+              AND t.finished >= t.started
+        ) p ON true
+        WHERE d.id = ?
+        GROUP BY d.id
+        """;
+
+    try (Connection connection = dataSource.getConnection();
+         PreparedStatement statement = connection.prepareStatement(sql)) {
+
+        statement.setObject(1, from);
+        statement.setObject(2, to);
+        statement.setLong(3, dishId);
+
         try (ResultSet resultSet = statement.executeQuery()) {
-            while (resultSet.next()) {
-                result.add(DishOrderWithTimestamps.builder()
-                    .dishId(resultSet.getLong("dish_id"))
-                    .dishName(resultSet.getString("dish_name"))
-                    .orderReference(resultSet.getString("order_reference"))
-                    .quantityOrdered(resultSet.getInt("quantity_ordered"))
-                    .inPreparationDate(resultSet.getTimestamp("in_preparation_date") != null ? 
-                        resultSet.getTimestamp("in_preparation_date").toLocalDateTime() : null)
-                    .finishedDate(resultSet.getTimestamp("finished_date") != null ? 
-                        resultSet.getTimestamp("finished_date").toLocalDateTime() : null)
-                    .build());
+            if (!resultSet.next()) {
+                return null;
             }
+            return ProcessingTimeStatistics.builder()
+                .dishId(resultSet.getLong("dish_id"))
+                .count(resultSet.getLong("count"))
+                .average(resultSet.getObject("average", Double.class))
+                .minimum(resultSet.getObject("minimum", Double.class))
+                .maximum(resultSet.getObject("maximum", Double.class))
+                .median(resultSet.getObject("median", Double.class))
+                .percentile95(resultSet.getObject("percentile_95", Double.class))
+                .build();
         }
-        return result;
     } catch (SQLException e) {
         throw new ServerException(e);
     }
 }
+
+private static final String WITH_TIMESTAMPS_SELECT = """
+    SELECT 
+        od.id AS dish_order_id,
+        d.id AS dish_id,
+        d.name AS dish_name,
+        o.reference AS order_reference,
+        od.quantity AS quantity_ordered,
+        (SELECT MIN(h.status_date_time) 
+         FROM dish_order_status_history h 
+         WHERE h.dish_order_id = od.id AND h.status = 'EN_PREPARATION') AS in_preparation_date,
+        (SELECT MIN(h.status_date_time) 
+         FROM dish_order_status_history h 
+         WHERE h.dish_order_id = od.id AND h.status = 'TERMINE') AS finished_date
+    FROM order_dish od
+    JOIN dish d ON od.dish_id = d.id
+    JOIN "order" o ON od.order_id = o.id
+    """;
+
+private List<DishOrderWithTimestamps> mapWithTimestamps(PreparedStatement statement) throws SQLException {
+    List<DishOrderWithTimestamps> result = new ArrayList<>();
+    try (ResultSet resultSet = statement.executeQuery()) {
+        while (resultSet.next()) {
+            result.add(DishOrderWithTimestamps.builder()
+                .dishOrderId(resultSet.getLong("dish_order_id"))
+                .dishId(resultSet.getLong("dish_id"))
+                .dishName(resultSet.getString("dish_name"))
+                .orderReference(resultSet.getString("order_reference"))
+                .quantityOrdered(resultSet.getInt("quantity_ordered"))
+                .inPreparationDate(resultSet.getTimestamp("in_preparation_date") != null ? 
+                    resultSet.getTimestamp("in_preparation_date").toLocalDateTime() : null)
+                .finishedDate(resultSet.getTimestamp("finished_date") != null ? 
+                    resultSet.getTimestamp("finished_date").toLocalDateTime() : null)
+                .build());
+        }
+    }
+    return result;
+}
 }
@@ -0,0 +1,138 @@
+package edu.hei.school.restaurant.dao.operations;
+
+import edu.hei.school.restaurant.dao.DataSource;
+import edu.hei.school.restaurant.model.DishSales;
+import edu.hei.school.restaurant.service.exception.ServerException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ventes par plat et par jour (table dish_sales_daily). La table est tenue à jour
+ * dans la transaction qui fait passer une commande à SERVI, de sorte que /sales ne
+ * dépend plus de la taille de l'historique des commandes.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DishSalesCrudOperations {
+    private final DataSource dataSource;
+
+    // Ajoute les lignes d'une commande servie au jour donné.
+    // Doit être appelé avec la connexion (transactionnelle) qui enregistre le statut SERVI.
+    public void addServedOrder(Connection connection, long orderId, LocalDate salesDate) throws SQLException {
+        String sql = """
+            INSERT INTO dish_sales_daily (dish_id, sales_date, quantity_sold, total_amount)
+            SELECT od.dish_id, ?, SUM(od.quantity), SUM(od.quantity * d.price)
+            FROM order_dish od
+            JOIN dish d ON d.id = od.dish_id
+            WHERE od.order_id = ?
+            GROUP BY od.dish_id
+            ON CONFLICT (dish_id, sales_date) DO UPDATE
+            SET quantity_sold = dish_sales_daily.quantity_sold + EXCLUDED.quantity_sold,
+                total_amount = dish_sales_daily.total_amount + EXCLUDED.total_amount
+            """;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setDate(1, Date.valueOf(salesDate));
+            statement.setLong(2, orderId);
+            statement.executeUpdate();
+        }
+    }
+
+    // Reconstruit entièrement l'agrégat à partir des commandes dont le statut actuel est SERVI.
+    // Le verrou bloque les mises à jour concurrentes le temps de la reconstruction :
+    // une commande servie pendant le backfill est comptée une seule fois.
+    // Retourne le nombre de lignes (plat, jour) produites.
+    public int backfill() {
+        String sql = """
+            INSERT INTO dish_sales_daily (dish_id, sales_date, quantity_sold, total_amount)
+            SELECT od.dish_id, os.status_datetime::date, SUM(od.quantity), SUM(od.quantity * d.price)
+            FROM "order" o
+            JOIN LATERAL (
+                SELECT s.status, s.status_datetime
+                FROM "order_status" s
+                WHERE s.order_id = o.id
+                ORDER BY s.status_datetime DESC, s.id DESC
+                LIMIT 1
+            ) os ON true
+            JOIN order_dish od ON od.order_id = o.id
+            JOIN dish d ON d.id = od.dish_id
+            WHERE os.status = 'SERVI'
+            GROUP BY od.dish_id, os.status_datetime::date
+            """;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("LOCK TABLE dish_sales_daily IN EXCLUSIVE MODE");
+                statement.executeUpdate("DELETE FROM dish_sales_daily");
+                int rows = statement.executeUpdate(sql);
+                connection.commit();
+                return rows;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+    }
+
+    // Ventes par plat sur l'intervalle [from, to] (jours inclus, bornes optionnelles),
+    // triées par quantité décroissante. top = null : pas de limite.
+    public List<DishSales> findDishSales(LocalDate from, LocalDate to, Integer top) {
+        StringBuilder sql = new StringBuilder("""
+            SELECT d.id AS dish_id, d.name AS dish_name,
+                   SUM(s.quantity_sold) AS quantity_sold,
+                   SUM(s.total_amount) AS total_amount
+            FROM dish_sales_daily s
+            JOIN dish d ON d.id = s.dish_id
+            WHERE true
+            """);
+        List<Date> bounds = new ArrayList<>();
+        if (from != null) {
+            sql.append(" AND s.sales_date >= ?");
+            bounds.add(Date.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND s.sales_date <= ?");
+            bounds.add(Date.valueOf(to));
+        }
+        sql.append(" GROUP BY d.id, d.name ORDER BY quantity_sold DESC, d.id");
+        if (top != null) {
+            sql.append(" LIMIT ?");
+        }
+
+        List<DishSales> sales = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (Date bound : bounds) {
+                statement.setDate(index++, bound);
+            }
+            if (top != null) {
+                statement.setInt(index, top);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    sales.add(DishSales.builder()
+                            .dishId(resultSet.getLong("dish_id"))
+                            .dishName(resultSet.getString("dish_name"))
+                            .quantitySold(resultSet.getInt("quantity_sold"))
+                            .totalAmount(resultSet.getDouble("total_amount"))
+                            .build());
+                }
+            }
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+        return sales;
+    }
+}
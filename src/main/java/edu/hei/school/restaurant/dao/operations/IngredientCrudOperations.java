@@ -3,6 +3,9 @@ package edu.hei.school.restaurant.dao.operations;
 import edu.hei.school.restaurant.dao.DataSource;
 import edu.hei.school.restaurant.model.DishIngredient;
 import edu.hei.school.restaurant.model.Ingredient;
+import edu.hei.school.restaurant.model.Price;
+import edu.hei.school.restaurant.model.StockBalanceCheckpoint;
+import edu.hei.school.restaurant.model.StockMovement;
 import edu.hei.school.restaurant.dao.mapper.DishIngredientMapper;
 import edu.hei.school.restaurant.dao.mapper.IngredientMapper;
 import edu.hei.school.restaurant.service.exception.NotFoundException;
@@ -19,12 +22,16 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 @RequiredArgsConstructor
 public class IngredientCrudOperations implements CrudOperations<Ingredient> {
     private final DataSource dataSource;
     private final IngredientMapper ingredientMapper;
+    private final PriceCrudOperations priceCrudOperations;
+    private final StockMovementCrudOperations stockMovementCrudOperations;
+    private final StockBalanceCheckpointCrudOperations stockBalanceCheckpointCrudOperations;
 
     // TODO : default values for page and size
     @Override
@@ -40,7 +47,83 @@ public class IngredientCrudOperations implements CrudOperations<Ingredient> {
                     Ingredient ingredient = ingredientMapper.apply(resultSet);
                     ingredients.add(ingredient);
                 }
-                return ingredients;
+                return withDetails(ingredients, true);
+            }
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+    }
+
+    @Override
+    public List<Ingredient> getAllAfter(Long afterId, int size) {
+        List<Ingredient> ingredients = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "select i.id, i.name from ingredient i where i.id > ? order by i.id asc limit ?")) {
+            statement.setLong(1, afterId != null ? afterId : 0L);
+            statement.setInt(2, size);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    ingredients.add(ingredientMapper.apply(resultSet));
+                }
+                return withDetails(ingredients, true);
+            }
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+    }
+
+    // Ingrédients dont le prix actuel (dernier prix par date, 0 sans prix) est dans
+    // [priceMin, priceMax] (bornes optionnelles), paginés par curseur sur l'id
+    // Page "page" (1-based, LIMIT/OFFSET) des ingrédients dont le prix actuel est dans l'intervalle
+    public List<Ingredient> findByActualPrice(Double priceMin, Double priceMax, int page, int size) {
+        return findByActualPrice(priceMin, priceMax, null, size * (page - 1), size);
+    }
+
+    // Ingrédients d'id supérieur à afterId dont le prix actuel est dans l'intervalle (keyset)
+    public List<Ingredient> findByActualPrice(Double priceMin, Double priceMax, Long afterId, int size) {
+        return findByActualPrice(priceMin, priceMax, afterId, 0, size);
+    }
+
+    private List<Ingredient> findByActualPrice(Double priceMin, Double priceMax, Long afterId, int offset, int size) {
+        StringBuilder sql = new StringBuilder("""
+            select i.id, i.name
+            from ingredient i
+            left join lateral (
+                select p.amount
+                from price p
+                where p.id_ingredient = i.id
+                order by p.date_value desc, p.id desc
+                limit 1
+            ) p on true
+            where i.id > ?
+            """);
+        if (priceMin != null) {
+            sql.append(" and coalesce(p.amount, 0) >= ?");
+        }
+        if (priceMax != null) {
+            sql.append(" and coalesce(p.amount, 0) <= ?");
+        }
+        sql.append(" order by i.id asc limit ? offset ?");
+
+        List<Ingredient> ingredients = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            int index = 1;
+            statement.setLong(index++, afterId != null ? afterId : 0L);
+            if (priceMin != null) {
+                statement.setDouble(index++, priceMin);
+            }
+            if (priceMax != null) {
+                statement.setDouble(index++, priceMax);
+            }
+            statement.setInt(index++, size);
+            statement.setInt(index, offset);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    ingredients.add(ingredientMapper.apply(resultSet));
+                }
+                return withDetails(ingredients, true);
             }
         } catch (SQLException e) {
             throw new ServerException(e);
@@ -56,7 +139,7 @@ public class IngredientCrudOperations implements CrudOperations<Ingredient> {
             statement.setLong(1, id);
             try (ResultSet resultSet = statement.executeQuery()) {
                 if (resultSet.next()) {
-                    return ingredientMapper.apply(resultSet);
+                    return withDetails(List.of(ingredientMapper.apply(resultSet)), true).getFirst();
                 }
                 throw new NotFoundException("Ingredient.id=" + id + " not found");
             }
@@ -112,7 +195,7 @@ public class IngredientCrudOperations implements CrudOperations<Ingredient> {
                 throw e;
             }
         }
-        return savedIngredients;
+        return withDetails(savedIngredients, true);
     }
 
     
@@ -130,7 +213,7 @@ public class IngredientCrudOperations implements CrudOperations<Ingredient> {
                         if (rs.next()) {
                             Ingredient updated = ingredientMapper.apply(rs);
                             connection.commit();
-                            return updated;
+                            return withDetails(List.of(updated), true).getFirst();
                         }
                         throw new NotFoundException("Ingredient not found for update");
                     }
@@ -162,6 +245,8 @@ public class IngredientCrudOperations implements CrudOperations<Ingredient> {
                     DishIngredient dishIngredient = dishIngredientMapper.apply(resultSet, ingredient);
                     dishIngredients.add(dishIngredient);
                 }
+                // Recette : seul le stock actuel sert, l'historique des mouvements n'est pas exposé
+                withDetails(dishIngredients.stream().map(DishIngredient::getIngredient).toList(), false);
                 return dishIngredients;
             }
         } catch (SQLException e) {
@@ -169,4 +254,30 @@ public class IngredientCrudOperations implements CrudOperations<Ingredient> {
         }
     }
     
+    // Complète les ingrédients lus (prix, dernier checkpoint de solde et mouvements) en trois
+    // requêtes, quel que soit leur nombre. fullHistory : tous les mouvements, comme le décrit
+    // Ingredient.stockMovements dans l'API ; sinon seulement ceux postérieurs au checkpoint,
+    // suffisants pour le stock actuel (l'ingrédient refuse alors les dates antérieures).
+    private List<Ingredient> withDetails(List<Ingredient> ingredients, boolean fullHistory) {
+        if (ingredients.isEmpty()) {
+            return ingredients;
+        }
+        List<Long> ids = ingredients.stream().map(Ingredient::getId).distinct().toList();
+        Map<Long, List<Price>> pricesByIngredient = priceCrudOperations.findByIdIngredients(ids);
+        Map<Long, StockBalanceCheckpoint> checkpointByIngredient =
+                stockBalanceCheckpointCrudOperations.findLatestByIdIngredients(ids);
+        Map<Long, List<StockMovement>> stockMovementsByIngredient = stockMovementCrudOperations
+                .findAfterCheckpoints(ids, fullHistory ? Map.of() : checkpointByIngredient);
+
+        for (Ingredient ingredient : ingredients) {
+            Long id = ingredient.getId();
+            StockBalanceCheckpoint checkpoint = checkpointByIngredient.get(id);
+            ingredient.setPrices(new ArrayList<>(pricesByIngredient.getOrDefault(id, List.of())));
+            ingredient.setStockBalanceCheckpoints(checkpoint != null ? List.of(checkpoint) : List.of());
+            ingredient.setStockMovements(new ArrayList<>(stockMovementsByIngredient.getOrDefault(id, List.of())));
+            ingredient.setStockMovementsLoadedAfter(
+                    !fullHistory && checkpoint != null ? checkpoint.getCheckpointDatetime() : null);
+        }
+        return ingredients;
+    }
 }
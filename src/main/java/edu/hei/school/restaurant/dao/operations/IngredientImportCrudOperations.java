@@ -0,0 +1,205 @@
+package edu.hei.school.restaurant.dao.operations;
+
+import edu.hei.school.restaurant.dao.CopyWriter;
+import edu.hei.school.restaurant.dao.DataSource;
+import edu.hei.school.restaurant.model.ImportProgress;
+import edu.hei.school.restaurant.model.Price;
+import edu.hei.school.restaurant.model.StockMovement;
+import edu.hei.school.restaurant.service.exception.ServerException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+/**
+ * Imports en flux de mouvements de stock et de prix, pour de nombreux ingrédients à la fois.
+ * Les lignes valides sont chargées par COPY dans une table temporaire (supprimée au commit),
+ * au fil de la lecture : la mémoire utilisée ne dépend pas de la taille du fichier. Les
+ * ingrédients sont ensuite contrôlés en une requête, puis les lignes fusionnées dans les
+ * tables définitives par des ordres ensemblistes. Tout l'import est une seule transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class IngredientImportCrudOperations {
+    private final DataSource dataSource;
+
+    // Source des lignes validées, appelée une fois ; sink reçoit chaque ligne dans l'ordre du fichier
+    @FunctionalInterface
+    public interface RowFeed<T> {
+        void feed(RowSink<T> sink) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface RowSink<T> {
+        void accept(long line, T row);
+    }
+
+    // Mouvements ajoutés au grand livre ; les checkpoints postérieurs au plus ancien mouvement
+    // importé de chaque ingrédient sont invalidés, comme dans StockMovementCrudOperations.saveAll
+    public void importStockMovements(RowFeed<StockMovement> feed, ImportProgress progress) throws IOException {
+        String staging = "import_stock_movement";
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                execute(connection, "CREATE TEMP TABLE " + staging + " (line bigint NOT NULL,"
+                        + " id_ingredient bigint NOT NULL, quantity numeric NOT NULL, unit unit NOT NULL,"
+                        + " movement_type stock_movement_type NOT NULL, creation_datetime timestamp NOT NULL)"
+                        + " ON COMMIT DROP");
+                try (CopyWriter copy = new CopyWriter(connection, staging,
+                        "line, id_ingredient, quantity, unit, movement_type, creation_datetime")) {
+                    feed.feed((line, stockMovement) -> {
+                        copy.field(line)
+                                .field(stockMovement.getIngredient().getId().longValue())
+                                .field(stockMovement.getQuantity().doubleValue())
+                                .field(stockMovement.getUnit().name())
+                                .field(stockMovement.getMovementType().name())
+                                .field(Timestamp.from(stockMovement.getCreationDatetime()));
+                        endRow(copy);
+                    });
+                }
+                progress.merging();
+                rejectUnknownIngredients(connection, staging, progress);
+
+                try (PreparedStatement lock = connection.prepareStatement("SELECT pg_advisory_xact_lock_shared(?)")) {
+                    // Verrou partagé : pas de création de checkpoint pendant l'écriture des mouvements
+                    lock.setLong(1, StockBalanceCheckpointCrudOperations.STOCK_LEDGER_LOCK);
+                    lock.execute();
+                }
+                long inserted = executeUpdate(connection, """
+                        INSERT INTO stock_movement (quantity, unit, movement_type, creation_datetime, id_ingredient)
+                        SELECT quantity, unit, movement_type, creation_datetime, id_ingredient
+                        FROM import_stock_movement
+                        ORDER BY line""");
+                executeUpdate(connection, """
+                        DELETE FROM stock_balance_checkpoint c
+                        USING (SELECT id_ingredient, MIN(creation_datetime) AS earliest
+                               FROM import_stock_movement
+                               GROUP BY id_ingredient) e
+                        WHERE c.id_ingredient = e.id_ingredient
+                          AND c.checkpoint_datetime >= e.earliest""");
+                connection.commit();
+                progress.completed(inserted, 0);
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+    }
+
+    // Un prix par ingrédient et par date : un prix existant à la même date est remplacé, sinon
+    // il est ajouté. Pour un même ingrédient et une même date, la dernière ligne du fichier l'emporte.
+    public void importPrices(RowFeed<Price> feed, ImportProgress progress) throws IOException {
+        String staging = "import_price";
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                execute(connection, "CREATE TEMP TABLE " + staging + " (line bigint NOT NULL,"
+                        + " id_ingredient bigint NOT NULL, amount numeric NOT NULL, date_value date NOT NULL)"
+                        + " ON COMMIT DROP");
+                try (CopyWriter copy = new CopyWriter(connection, staging, "line, id_ingredient, amount, date_value")) {
+                    feed.feed((line, price) -> {
+                        copy.field(line)
+                                .field(price.getIngredient().getId().longValue())
+                                .field(price.getAmount().doubleValue())
+                                .field(Date.valueOf(price.getDateValue()));
+                        endRow(copy);
+                    });
+                }
+                progress.merging();
+                rejectUnknownIngredients(connection, staging, progress);
+
+                String mergeSql = """
+                        WITH latest AS (
+                            SELECT DISTINCT ON (id_ingredient, date_value) id_ingredient, date_value, amount
+                            FROM import_price
+                            ORDER BY id_ingredient, date_value, line DESC
+                        ), updated AS (
+                            UPDATE price p SET amount = l.amount
+                            FROM latest l
+                            WHERE p.id_ingredient = l.id_ingredient AND p.date_value = l.date_value
+                            RETURNING p.id_ingredient, p.date_value
+                        ), inserted AS (
+                            INSERT INTO price (amount, date_value, id_ingredient)
+                            SELECT l.amount, l.date_value, l.id_ingredient
+                            FROM latest l
+                            WHERE NOT EXISTS (SELECT 1 FROM price p
+                                              WHERE p.id_ingredient = l.id_ingredient AND p.date_value = l.date_value)
+                            RETURNING id
+                        )
+                        SELECT (SELECT COUNT(*) FROM inserted) AS inserted,
+                               (SELECT COUNT(*) FROM (SELECT DISTINCT id_ingredient, date_value FROM updated) u) AS updated
+                        """;
+                long inserted;
+                long updated;
+                try (Statement statement = connection.createStatement();
+                     ResultSet resultSet = statement.executeQuery(mergeSql)) {
+                    resultSet.next();
+                    inserted = resultSet.getLong("inserted");
+                    updated = resultSet.getLong("updated");
+                }
+                connection.commit();
+                progress.completed(inserted, updated);
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+    }
+
+    // Lignes dont l'ingrédient n'existe pas : les premières sont détaillées dans le rapport,
+    // toutes sont retirées de la table de transit
+    private void rejectUnknownIngredients(Connection connection, String staging, ImportProgress progress)
+            throws SQLException {
+        execute(connection, "ANALYZE " + staging);
+        String unknown = " FROM " + staging + " s"
+                + " WHERE NOT EXISTS (SELECT 1 FROM ingredient i WHERE i.id = s.id_ingredient)";
+        long reported = 0;
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT s.line, s.id_ingredient" + unknown + " ORDER BY s.line LIMIT ?")) {
+            statement.setInt(1, ImportProgress.MAX_REPORTED_ERRORS);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    progress.reject(resultSet.getLong("line"),
+                            "Ingredient.id=" + resultSet.getLong("id_ingredient") + " not found");
+                    reported++;
+                }
+            }
+        }
+        if (reported == 0) {
+            return;
+        }
+        long deleted = executeUpdate(connection, "DELETE" + unknown);
+        progress.rejectMore(deleted - reported);
+    }
+
+    private static void endRow(CopyWriter copy) {
+        try {
+            copy.endRow();
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static long executeUpdate(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            return statement.executeLargeUpdate(sql);
+        }
+    }
+}
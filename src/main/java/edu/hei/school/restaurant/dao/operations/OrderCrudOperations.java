@@ -1,31 +1,77 @@
 package edu.hei.school.restaurant.dao.operations;
 
 import edu.hei.school.restaurant.dao.DataSource;
+import edu.hei.school.restaurant.model.Dish;
 import edu.hei.school.restaurant.model.DishOrder;
+import edu.hei.school.restaurant.model.DishOrderStatus;
 import edu.hei.school.restaurant.model.DishOrderStatusHistory;
 import edu.hei.school.restaurant.model.Order;
+import edu.hei.school.restaurant.model.OrderExportLine;
 import edu.hei.school.restaurant.model.OrderStatus;
 import edu.hei.school.restaurant.model.OrderStatusHistory;
+import edu.hei.school.restaurant.dao.mapper.DishOrderMapper;
+import edu.hei.school.restaurant.dao.mapper.DishOrderStatusHistoryMapper;
+import edu.hei.school.restaurant.dao.mapper.OrderAggregateMapper;
 import edu.hei.school.restaurant.dao.mapper.OrderMapper;
 import edu.hei.school.restaurant.dao.mapper.OrderStatusHistoryMapper;
+import edu.hei.school.restaurant.service.exception.ClientException;
 import edu.hei.school.restaurant.service.exception.NotFoundException;
 import edu.hei.school.restaurant.service.exception.ServerException;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import java.sql.*;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Repository
-@RequiredArgsConstructor
 public class OrderCrudOperations implements CrudOperations<Order> {
     private final DataSource dataSource;
     private final OrderMapper orderMapper;
     private final OrderStatusHistoryMapper statusHistoryMapper;
-    private final DishOrderCrudOperations dishOrderCrudOperations;
+    private final OrderAggregateMapper orderAggregateMapper;
+    private final DishOrderMapper dishOrderMapper;
+    private final DishOrderStatusHistoryMapper dishOrderStatusHistoryMapper;
+    private final DishSalesCrudOperations dishSalesCrudOperations;
+    // Lignes lues par aller-retour du curseur d'export
+    private final int exportFetchSize;
+    // Durée maximale d'un export : la connexion (et le permis du limiteur) est tenue
+    // pendant tout le téléchargement, y compris quand le client lit lentement
+    private final Duration exportMaxDuration;
+
+    public OrderCrudOperations(
+            DataSource dataSource,
+            OrderMapper orderMapper,
+            OrderStatusHistoryMapper statusHistoryMapper,
+            OrderAggregateMapper orderAggregateMapper,
+            DishOrderMapper dishOrderMapper,
+            DishOrderStatusHistoryMapper dishOrderStatusHistoryMapper,
+            DishSalesCrudOperations dishSalesCrudOperations,
+            @Value("${orders.export.fetch-size:1000}") int exportFetchSize,
+            @Value("${orders.export.max-duration:10m}") Duration exportMaxDuration) {
+        this.dataSource = dataSource;
+        this.orderMapper = orderMapper;
+        this.statusHistoryMapper = statusHistoryMapper;
+        this.orderAggregateMapper = orderAggregateMapper;
+        this.dishOrderMapper = dishOrderMapper;
+        this.dishOrderStatusHistoryMapper = dishOrderStatusHistoryMapper;
+        this.dishSalesCrudOperations = dishSalesCrudOperations;
+        this.exportFetchSize = exportFetchSize;
+        this.exportMaxDuration = exportMaxDuration;
+    }
 
     @Override
     public List<Order> getAll(int page, int size) {
@@ -45,12 +91,10 @@ public class OrderCrudOperations implements CrudOperations<Order> {
             
             try (ResultSet resultSet = statement.executeQuery()) {
                 while (resultSet.next()) {
-                    Order order = orderMapper.apply(resultSet);
-                    order.setStatusHistory(getStatusHistory(order.getId()));
-                    order.setDishOrders(dishOrderCrudOperations.findByOrderId(order.getId()));
-                    orders.add(order);
+                    orders.add(orderMapper.apply(resultSet));
                 }
             }
+            loadGraphs(connection, orders);
         } catch (SQLException e) {
             throw new ServerException(e);
         }
@@ -58,48 +102,221 @@ public class OrderCrudOperations implements CrudOperations<Order> {
     }
 
     @Override
-    public Order findById(Long id) {
-        String sql = "SELECT o.id, o.reference, o.creation_datetime FROM \"order\" o WHERE o.id = ?";
-        
+    public List<Order> getAllAfter(Long afterId, int size) {
+        List<Order> orders = new ArrayList<>();
+        String sql = """
+            SELECT o.id, o.reference, o.creation_datetime
+            FROM "order" o
+            WHERE o.id > ?
+            ORDER BY o.id
+            LIMIT ?
+            """;
+
         try (Connection connection = dataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
-            
-            statement.setLong(1, id);
-            
+
+            statement.setLong(1, afterId != null ? afterId : 0L);
+            statement.setInt(2, size);
+
             try (ResultSet resultSet = statement.executeQuery()) {
-                if (resultSet.next()) {
-                    Order order = orderMapper.apply(resultSet);
-                    order.setStatusHistory(getStatusHistory(order.getId()));
-                    order.setDishOrders(dishOrderCrudOperations.findByOrderId(order.getId()));
-                    return order;
+                while (resultSet.next()) {
+                    orders.add(orderMapper.apply(resultSet));
                 }
-                throw new NotFoundException("Order.id=" + id + " not found");
             }
+            loadGraphs(connection, orders);
         } catch (SQLException e) {
             throw new ServerException(e);
         }
+        return orders;
+    }
+
+    @Override
+    public Order findById(Long id) {
+        Order order = findAggregate("o.id = ?", statement -> statement.setLong(1, id));
+        if (order == null) {
+            throw new NotFoundException("Order.id=" + id + " not found");
+        }
+        return order;
     }
 
     public Order findByReference(String reference) {
-        String sql = "SELECT o.id, o.reference, o.creation_datetime FROM \"order\" o WHERE o.reference = ?";
-        
+        Order order = findAggregate("o.reference = ?", statement -> statement.setString(1, reference));
+        if (order == null) {
+            throw new NotFoundException("Order.reference=" + reference + " not found");
+        }
+        return order;
+    }
+
+    // Commandes demandées, dans l'ordre des références ; les références inconnues sont ignorées
+    public List<Order> findAllByReferences(List<String> references) {
+        List<Order> orders = new ArrayList<>();
+        if (references == null || references.isEmpty()) {
+            return orders;
+        }
+        String sql = """
+            SELECT o.id, o.reference, o.creation_datetime
+            FROM "order" o
+            WHERE o.reference = ANY(?)
+            """;
+
         try (Connection connection = dataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
-            
-            statement.setString(1, reference);
-            
+
+            statement.setArray(1, connection.createArrayOf("varchar", references.toArray()));
+
+            Map<String, Order> ordersByReference = new HashMap<>();
             try (ResultSet resultSet = statement.executeQuery()) {
-                if (resultSet.next()) {
+                while (resultSet.next()) {
                     Order order = orderMapper.apply(resultSet);
-                    order.setStatusHistory(getStatusHistory(order.getId()));
-                    order.setDishOrders(dishOrderCrudOperations.findByOrderId(order.getId()));
-                    return order;
+                    ordersByReference.put(order.getReference(), order);
+                }
+            }
+            for (String reference : new LinkedHashSet<>(references)) {
+                Order order = ordersByReference.get(reference);
+                if (order != null) {
+                    orders.add(order);
                 }
-                throw new NotFoundException("Order.reference=" + reference + " not found");
             }
+            loadGraphs(connection, orders);
         } catch (SQLException e) {
             throw new ServerException(e);
         }
+        return orders;
+    }
+
+    // Complète une page de commandes (historiques, lignes, historiques des lignes) avec
+    // trois requêtes "= ANY(?)" au total, quel que soit le nombre de commandes.
+    private void loadGraphs(Connection connection, List<Order> orders) throws SQLException {
+        if (orders.isEmpty()) {
+            return;
+        }
+        Map<Long, Order> ordersById = new HashMap<>();
+        for (Order order : orders) {
+            order.setStatusHistory(new ArrayList<>());
+            order.setDishOrders(new ArrayList<>());
+            ordersById.put(order.getId(), order);
+        }
+        Array orderIds = connection.createArrayOf("bigint", ordersById.keySet().toArray());
+
+        String statusSql = """
+            SELECT s.id, s.order_id, s.status, s.status_datetime
+            FROM "order_status" s
+            WHERE s.order_id = ANY(?)
+            ORDER BY s.order_id, s.status_datetime, s.id
+            """;
+        try (PreparedStatement statement = connection.prepareStatement(statusSql)) {
+            statement.setArray(1, orderIds);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    ordersById.get(resultSet.getLong("order_id")).getStatusHistory()
+                            .add(statusHistoryMapper.apply(resultSet));
+                }
+            }
+        }
+
+        String dishOrderSql = """
+            SELECT od.id, od.order_id, od.dish_id, od.quantity,
+                   d.name, d.price,
+                   ods.current_status
+            FROM order_dish od
+            JOIN dish d ON d.id = od.dish_id
+            LEFT JOIN LATERAL (
+                SELECT s.status AS current_status
+                FROM order_dish_status s
+                WHERE s.order_dish_id = od.id
+                ORDER BY s.status_datetime DESC, s.id DESC
+                LIMIT 1
+            ) ods ON true
+            WHERE od.order_id = ANY(?)
+            ORDER BY od.order_id, od.id
+            """;
+        Map<Long, DishOrder> dishOrdersById = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(dishOrderSql)) {
+            statement.setArray(1, orderIds);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    DishOrder dishOrder = dishOrderMapper.apply(resultSet);
+                    dishOrder.setStatusHistory(new ArrayList<>());
+                    ordersById.get(dishOrder.getOrder().getId()).getDishOrders().add(dishOrder);
+                    dishOrdersById.put(dishOrder.getId(), dishOrder);
+                }
+            }
+        }
+        if (dishOrdersById.isEmpty()) {
+            return;
+        }
+
+        String historySql = """
+            SELECT h.id, h.dish_order_id, h.status, h.status_date_time AS status_datetime
+            FROM dish_order_status_history h
+            WHERE h.dish_order_id = ANY(?)
+            ORDER BY h.dish_order_id, h.status_date_time, h.id
+            """;
+        try (PreparedStatement statement = connection.prepareStatement(historySql)) {
+            statement.setArray(1, connection.createArrayOf("bigint", dishOrdersById.keySet().toArray()));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    dishOrdersById.get(resultSet.getLong("dish_order_id")).getStatusHistory()
+                            .add(dishOrderStatusHistoryMapper.apply(resultSet));
+                }
+            }
+        }
+    }
+
+    // Charge la commande, son historique, ses lignes et l'historique de chaque ligne
+    // en une seule requête (une ligne par plat, historiques agrégés en tableaux).
+    private Order findAggregate(String condition, StatementBinder binder) {
+        String sql = """
+            SELECT o.id, o.reference, o.creation_datetime,
+                   os.status_ids, os.statuses, os.status_datetimes,
+                   od.id AS dish_order_id, od.dish_id, od.quantity,
+                   d.name, d.price,
+                   ods.current_status,
+                   h.history_ids, h.history_statuses, h.history_datetimes
+            FROM "order" o
+            CROSS JOIN LATERAL (
+                SELECT array_agg(s.id ORDER BY s.status_datetime, s.id) AS status_ids,
+                       array_agg(s.status ORDER BY s.status_datetime, s.id) AS statuses,
+                       array_agg(s.status_datetime ORDER BY s.status_datetime, s.id) AS status_datetimes
+                FROM "order_status" s
+                WHERE s.order_id = o.id
+            ) os
+            LEFT JOIN order_dish od ON od.order_id = o.id
+            LEFT JOIN dish d ON d.id = od.dish_id
+            LEFT JOIN LATERAL (
+                SELECT s.status AS current_status
+                FROM order_dish_status s
+                WHERE s.order_dish_id = od.id
+                ORDER BY s.status_datetime DESC, s.id DESC
+                LIMIT 1
+            ) ods ON true
+            LEFT JOIN LATERAL (
+                SELECT array_agg(dh.id ORDER BY dh.status_date_time, dh.id) AS history_ids,
+                       array_agg(dh.status ORDER BY dh.status_date_time, dh.id) AS history_statuses,
+                       array_agg(dh.status_date_time ORDER BY dh.status_date_time, dh.id) AS history_datetimes
+                FROM dish_order_status_history dh
+                WHERE dh.dish_order_id = od.id
+            ) h ON true
+            WHERE %s
+            ORDER BY od.id
+            """.formatted(condition);
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+
+            binder.bind(statement);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return orderAggregateMapper.apply(resultSet);
+            }
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface StatementBinder {
+        void bind(PreparedStatement statement) throws SQLException;
     }
 
 
@@ -173,26 +390,6 @@ public class OrderCrudOperations implements CrudOperations<Order> {
 
 
 
-    private List<OrderStatusHistory> getStatusHistory(Long orderId) {
-        List<OrderStatusHistory> history = new ArrayList<>();
-        String sql = "SELECT id, status, status_datetime FROM \"order_status\" WHERE order_id = ? ORDER BY status_datetime";
-
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-            
-            statement.setLong(1, orderId);
-            
-            try (ResultSet resultSet = statement.executeQuery()) {
-                while (resultSet.next()) {
-                    history.add(statusHistoryMapper.apply(resultSet));
-                }
-            }
-        } catch (SQLException e) {
-            throw new ServerException(e);
-        }
-        return history;
-    }
-
     private void saveStatusHistory(Connection connection, Long orderId, List<OrderStatusHistory> history) throws SQLException {
         String sql = "INSERT INTO \"order_status\" (order_id, status, status_datetime) VALUES (?, ?, ?)";
         try (PreparedStatement statement = connection.prepareStatement(sql)) {
@@ -206,102 +403,246 @@ public class OrderCrudOperations implements CrudOperations<Order> {
         }
     }
 
+    // Historique append-only : on n'insère que les nouvelles entrées (sans id)
+    // et on supprime celles qui ont disparu du modèle.
     private void updateStatusHistory(Connection connection, Long orderId, List<OrderStatusHistory> history) throws SQLException {
-        String deleteSql = "DELETE FROM \"order_status\" WHERE order_id = ?";
-        String insertSql = "INSERT INTO \"order_status\" (order_id, status, status_datetime) VALUES (?, ?, ?)";
-        
-        try (PreparedStatement deleteStmt = connection.prepareStatement(deleteSql);
-             PreparedStatement insertStmt = connection.prepareStatement(insertSql)) {
-            
-            deleteStmt.setLong(1, orderId);
-            deleteStmt.executeUpdate();
-            
-            for (OrderStatusHistory entry : history) {
-                insertStmt.setLong(1, orderId);
-                insertStmt.setString(2, entry.getStatus().name());
-                insertStmt.setTimestamp(3, Timestamp.valueOf(entry.getStatusDateTime()));
-                insertStmt.addBatch();
+        List<Long> persistedIds = new ArrayList<>();
+        try (PreparedStatement stmt = connection.prepareStatement("SELECT id FROM \"order_status\" WHERE order_id = ?")) {
+            stmt.setLong(1, orderId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    persistedIds.add(rs.getLong("id"));
+                }
             }
-            insertStmt.executeBatch();
+        }
+
+        List<OrderStatusHistory> newEntries = new ArrayList<>();
+        Set<Long> keptIds = new HashSet<>();
+        for (OrderStatusHistory entry : history) {
+            if (entry.getId() == null) {
+                newEntries.add(entry);
+            } else {
+                keptIds.add(entry.getId());
+            }
+        }
+
+        List<Long> removedIds = persistedIds.stream().filter(id -> !keptIds.contains(id)).toList();
+        if (!removedIds.isEmpty()) {
+            try (PreparedStatement stmt = connection.prepareStatement(
+                    "DELETE FROM \"order_status\" WHERE order_id = ? AND id = ANY(?)")) {
+                stmt.setLong(1, orderId);
+                stmt.setArray(2, connection.createArrayOf("bigint", removedIds.toArray()));
+                stmt.executeUpdate();
+            }
+        }
+        if (!newEntries.isEmpty()) {
+            saveStatusHistory(connection, orderId, newEntries);
         }
     }
 
     private void saveDishOrders(Connection connection, Long orderId, List<DishOrder> dishOrders) throws SQLException {
-    String dishOrderSql = "INSERT INTO order_dish (order_id, dish_id, quantity) VALUES (?, ?, ?) RETURNING id";
-    String statusSql = "INSERT INTO order_dish_status (order_dish_id, status, status_datetime) VALUES (?, ?, ?)";
-    String historySql = "INSERT INTO dish_order_status_history (dish_order_id, status, status_date_time) VALUES (?, ?, ?)";
-    
-    try (PreparedStatement dishOrderStmt = connection.prepareStatement(dishOrderSql, Statement.RETURN_GENERATED_KEYS);
-         PreparedStatement statusStmt = connection.prepareStatement(statusSql);
-         PreparedStatement historyStmt = connection.prepareStatement(historySql)) {
-        
-        for (DishOrder dishOrder : dishOrders) {
-            // Insérer dans order_dish
-            dishOrderStmt.setLong(1, orderId);
-            dishOrderStmt.setLong(2, dishOrder.getDish().getId());
-            dishOrderStmt.setInt(3, dishOrder.getQuantity());
-            dishOrderStmt.executeUpdate();
-            
-            // Récupérer l'ID généré
+        if (dishOrders == null || dishOrders.isEmpty()) {
+            return;
+        }
+        String dishOrderSql = "INSERT INTO order_dish (order_id, dish_id, quantity) VALUES (?, ?, ?)";
+
+        try (PreparedStatement dishOrderStmt = connection.prepareStatement(dishOrderSql, new String[]{"id"})) {
+            for (DishOrder dishOrder : dishOrders) {
+                dishOrderStmt.setLong(1, orderId);
+                dishOrderStmt.setLong(2, dishOrder.getDish().getId());
+                dishOrderStmt.setInt(3, dishOrder.getQuantity());
+                dishOrderStmt.addBatch();
+            }
+            dishOrderStmt.executeBatch();
+
+            // Les clés générées sont rendues dans l'ordre du batch
             try (ResultSet generatedKeys = dishOrderStmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    Long dishOrderId = generatedKeys.getLong(1);
-                    
-                    // Insérer le statut initial dans order_dish_status
-                    statusStmt.setLong(1, dishOrderId);
-                    statusStmt.setString(2, dishOrder.getStatus().name());
-                    statusStmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
-                    statusStmt.addBatch();
-                    
-                    // Insérer tous les historiques de statut dans dish_order_status_history
-                    if (dishOrder.getStatusHistory() != null) {
-                        for (DishOrderStatusHistory history : dishOrder.getStatusHistory()) {
-                            historyStmt.setLong(1, dishOrderId);
-                            historyStmt.setString(2, history.getStatus().name());
-                            historyStmt.setTimestamp(3, Timestamp.valueOf(history.getStatusDateTime()));
-                            historyStmt.addBatch();
-                        }
+                for (DishOrder dishOrder : dishOrders) {
+                    if (!generatedKeys.next()) {
+                        throw new ServerException("Failed to insert dish order");
                     }
+                    dishOrder.setId(generatedKeys.getLong(1));
                 }
             }
         }
-        statusStmt.executeBatch();
-        historyStmt.executeBatch();
+
+        saveDishOrderStatuses(connection, dishOrders);
+        saveDishOrderStatusHistories(connection, dishOrders, false);
     }
-}
 
-private void updateDishOrders(Connection connection, Long orderId, List<DishOrder> dishOrders) throws SQLException {
-    // 1. Supprimer les anciens historiques de statut des plats
-    String deleteHistorySql = """
-        DELETE FROM dish_order_status_history 
-        WHERE dish_order_id IN (
-            SELECT id FROM order_dish WHERE order_id = ?
-        )
-        """;
-    try (PreparedStatement stmt = connection.prepareStatement(deleteHistorySql)) {
-        stmt.setLong(1, orderId);
-        stmt.executeUpdate();
+    // Statut courant (order_dish_status) de chaque ligne
+    private void saveDishOrderStatuses(Connection connection, List<DishOrder> dishOrders) throws SQLException {
+        if (dishOrders.isEmpty()) {
+            return;
+        }
+        String statusSql = "INSERT INTO order_dish_status (order_dish_id, status, status_datetime) VALUES (?, ?, ?)";
+        try (PreparedStatement statusStmt = connection.prepareStatement(statusSql)) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            for (DishOrder dishOrder : dishOrders) {
+                DishOrderStatus status = dishOrder.getStatus() != null ? dishOrder.getStatus() : DishOrderStatus.CREE;
+                statusStmt.setLong(1, dishOrder.getId());
+                statusStmt.setString(2, status.name());
+                statusStmt.setTimestamp(3, now);
+                statusStmt.addBatch();
+            }
+            statusStmt.executeBatch();
+        }
     }
-    
-    // 2. Supprimer les anciens statuts des plats
-    String deleteStatusSql = "DELETE FROM order_dish_status WHERE order_dish_id IN (SELECT id FROM order_dish WHERE order_id = ?)";
-    try (PreparedStatement stmt = connection.prepareStatement(deleteStatusSql)) {
-        stmt.setLong(1, orderId);
-        stmt.executeUpdate();
+
+    // onlyNewEntries : n'insère que les entrées d'historique pas encore persistées (sans id)
+    private void saveDishOrderStatusHistories(Connection connection, List<DishOrder> dishOrders, boolean onlyNewEntries) throws SQLException {
+        String historySql = "INSERT INTO dish_order_status_history (dish_order_id, status, status_date_time) VALUES (?, ?, ?)";
+        try (PreparedStatement historyStmt = connection.prepareStatement(historySql)) {
+            int batchSize = 0;
+            for (DishOrder dishOrder : dishOrders) {
+                if (dishOrder.getStatusHistory() == null) {
+                    continue;
+                }
+                for (DishOrderStatusHistory history : dishOrder.getStatusHistory()) {
+                    if (onlyNewEntries && history.getId() != null) {
+                        continue;
+                    }
+                    historyStmt.setLong(1, dishOrder.getId());
+                    historyStmt.setString(2, history.getStatus().name());
+                    historyStmt.setTimestamp(3, Timestamp.valueOf(history.getStatusDateTime()));
+                    historyStmt.addBatch();
+                    batchSize++;
+                }
+            }
+            if (batchSize > 0) {
+                historyStmt.executeBatch();
+            }
+        }
     }
-    
-    // 3. Supprimer les anciens plats
-    String deleteDishSql = "DELETE FROM order_dish WHERE order_id = ?";
-    try (PreparedStatement stmt = connection.prepareStatement(deleteDishSql)) {
-        stmt.setLong(1, orderId);
-        stmt.executeUpdate();
+
+    // Compare les lignes persistées avec celles du modèle et n'émet que les
+    // INSERT / UPDATE / DELETE nécessaires. Les lignes conservées gardent leur id.
+    private void updateDishOrders(Connection connection, Long orderId, List<DishOrder> dishOrders) throws SQLException {
+        Map<Long, PersistedDishOrder> persisted = loadPersistedDishOrders(connection, orderId);
+        List<DishOrder> incoming = dishOrders != null ? dishOrders : List.of();
+
+        List<DishOrder> insertedLines = new ArrayList<>();
+        List<DishOrder> changedLines = new ArrayList<>();
+        List<DishOrder> statusChangedLines = new ArrayList<>();
+        List<Long> removedHistoryIds = new ArrayList<>();
+        Set<Long> keptLineIds = new HashSet<>();
+
+        for (DishOrder dishOrder : incoming) {
+            PersistedDishOrder current = dishOrder.getId() != null ? persisted.get(dishOrder.getId()) : null;
+            if (current == null) {
+                insertedLines.add(dishOrder);
+                continue;
+            }
+            keptLineIds.add(current.getId());
+            if (!current.getDishId().equals(dishOrder.getDish().getId())
+                    || !current.getQuantity().equals(dishOrder.getQuantity())) {
+                changedLines.add(dishOrder);
+            }
+            if (dishOrder.getStatus() != null && dishOrder.getStatus() != current.getStatus()) {
+                statusChangedLines.add(dishOrder);
+            }
+
+            Set<Long> keptHistoryIds = new HashSet<>();
+            if (dishOrder.getStatusHistory() != null) {
+                for (DishOrderStatusHistory history : dishOrder.getStatusHistory()) {
+                    if (history.getId() != null) {
+                        keptHistoryIds.add(history.getId());
+                    }
+                }
+            }
+            current.getHistoryIds().stream()
+                    .filter(id -> !keptHistoryIds.contains(id))
+                    .forEach(removedHistoryIds::add);
+        }
+
+        // Lignes retirées : statuts et historiques suivent par ON DELETE CASCADE
+        List<Long> removedLineIds = persisted.keySet().stream()
+                .filter(id -> !keptLineIds.contains(id))
+                .toList();
+        if (!removedLineIds.isEmpty()) {
+            try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM order_dish WHERE id = ANY(?)")) {
+                stmt.setArray(1, connection.createArrayOf("bigint", removedLineIds.toArray()));
+                stmt.executeUpdate();
+            }
+        }
+        if (!removedHistoryIds.isEmpty()) {
+            try (PreparedStatement stmt = connection.prepareStatement(
+                    "DELETE FROM dish_order_status_history WHERE id = ANY(?)")) {
+                stmt.setArray(1, connection.createArrayOf("bigint", removedHistoryIds.toArray()));
+                stmt.executeUpdate();
+            }
+        }
+        if (!changedLines.isEmpty()) {
+            try (PreparedStatement stmt = connection.prepareStatement(
+                    "UPDATE order_dish SET dish_id = ?, quantity = ? WHERE id = ?")) {
+                for (DishOrder dishOrder : changedLines) {
+                    stmt.setLong(1, dishOrder.getDish().getId());
+                    stmt.setInt(2, dishOrder.getQuantity());
+                    stmt.setLong(3, dishOrder.getId());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+        }
+        if (!insertedLines.isEmpty()) {
+            insertedLines.forEach(dishOrder -> dishOrder.setId(null));
+            saveDishOrders(connection, orderId, insertedLines);
+        }
+        List<DishOrder> keptLines = incoming.stream()
+                .filter(dishOrder -> dishOrder.getId() != null && keptLineIds.contains(dishOrder.getId()))
+                .toList();
+        saveDishOrderStatuses(connection, statusChangedLines);
+        saveDishOrderStatusHistories(connection, keptLines, true);
     }
-    
-    // 4. Ajouter les nouveaux plats avec leurs statuts et historiques
-    if (dishOrders != null && !dishOrders.isEmpty()) {
-        saveDishOrders(connection, orderId, dishOrders);
+
+    private Map<Long, PersistedDishOrder> loadPersistedDishOrders(Connection connection, Long orderId) throws SQLException {
+        String sql = """
+            SELECT od.id, od.dish_id, od.quantity, ods.current_status,
+                   ARRAY(SELECT h.id FROM dish_order_status_history h WHERE h.dish_order_id = od.id) AS history_ids
+            FROM order_dish od
+            LEFT JOIN LATERAL (
+                SELECT s.status AS current_status
+                FROM order_dish_status s
+                WHERE s.order_dish_id = od.id
+                ORDER BY s.status_datetime DESC, s.id DESC
+                LIMIT 1
+            ) ods ON true
+            WHERE od.order_id = ?
+            FOR UPDATE OF od
+            """;
+        Map<Long, PersistedDishOrder> persisted = new HashMap<>();
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, orderId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String currentStatus = rs.getString("current_status");
+                    Set<Long> historyIds = new HashSet<>();
+                    for (Object id : (Object[]) rs.getArray("history_ids").getArray()) {
+                        historyIds.add(((Number) id).longValue());
+                    }
+                    PersistedDishOrder line = new PersistedDishOrder(
+                            rs.getLong("id"),
+                            rs.getLong("dish_id"),
+                            rs.getInt("quantity"),
+                            currentStatus != null ? DishOrderStatus.valueOf(currentStatus) : DishOrderStatus.CREE,
+                            historyIds);
+                    persisted.put(line.getId(), line);
+                }
+            }
+        }
+        return persisted;
+    }
+
+    // État d'une ligne tel qu'en base, au début de la transaction
+    @Getter
+    @RequiredArgsConstructor
+    private static class PersistedDishOrder {
+        private final Long id;
+        private final Long dishId;
+        private final Integer quantity;
+        private final DishOrderStatus status;
+        private final Set<Long> historyIds;
     }
-}
 
     public Order save(Order order) {
         try (Connection connection = dataSource.getConnection()) {
@@ -375,6 +716,196 @@ private void updateDishOrders(Connection connection, Long orderId, List<DishOrde
     }
 
 
+    // Fait avancer le statut d'un plat d'une commande en une transaction courte :
+    // validation de la transition, ajout d'une ligne d'historique, puis calcul du
+    // statut de la commande en SQL (et mise à jour de dish_sales_daily si elle passe à SERVI).
+    // Le coût ne dépend pas du nombre de lignes chargées.
+    // La commande retournée est construite à partir de la lecture verrouillée (une ligne par plat,
+    // avec son statut actuel) : chaque historique ne contient que le statut courant.
+    public Order advanceDishStatus(String reference, Long dishId, DishOrderStatus newStatus) {
+        String lockSql = """
+            SELECT o.id AS order_id, o.creation_datetime,
+                   od.id AS dish_order_id, od.dish_id, od.quantity,
+                   d.name AS dish_name, d.price AS dish_price,
+                   ods.current_status
+            FROM "order" o
+            LEFT JOIN order_dish od ON od.order_id = o.id
+            LEFT JOIN dish d ON d.id = od.dish_id
+            LEFT JOIN LATERAL (
+                SELECT s.status AS current_status
+                FROM order_dish_status s
+                WHERE s.order_dish_id = od.id
+                ORDER BY s.status_datetime DESC, s.id DESC
+                LIMIT 1
+            ) ods ON true
+            WHERE o.reference = ?
+            ORDER BY od.id
+            FOR UPDATE OF o
+            """;
+
+        String dishStatusSql = """
+            WITH current_status AS (
+                INSERT INTO order_dish_status (order_dish_id, status, status_datetime)
+                VALUES (?, ?, ?)
+            )
+            INSERT INTO dish_order_status_history (dish_order_id, status, status_date_time)
+            VALUES (?, ?, ?)
+            """;
+
+        // Mêmes règles que l'ancien OrderService.updateOrderStatusBasedOnDishes :
+        // tous CONFIRME -> CONFIRME, un EN_PREPARATION -> EN_PREPARATION,
+        // tous TERMINE -> TERMINE, tous SERVI -> SERVI (si différent du statut actuel).
+        String orderStatusSql = """
+            WITH line_status AS (
+                SELECT COALESCE(ods.status, 'CREE') AS status
+                FROM order_dish od
+                LEFT JOIN LATERAL (
+                    SELECT s.status
+                    FROM order_dish_status s
+                    WHERE s.order_dish_id = od.id
+                    ORDER BY s.status_datetime DESC, s.id DESC
+                    LIMIT 1
+                ) ods ON true
+                WHERE od.order_id = ?
+            ), target AS (
+                SELECT CASE
+                           WHEN bool_and(status = 'CONFIRME') THEN 'CONFIRME'
+                           WHEN bool_or(status = 'EN_PREPARATION') THEN 'EN_PREPARATION'
+                           WHEN bool_and(status = 'TERMINE') THEN 'TERMINE'
+                           WHEN bool_and(status = 'SERVI') THEN 'SERVI'
+                       END AS status
+                FROM line_status
+            ), current_order_status AS (
+                SELECT COALESCE((
+                    SELECT s.status
+                    FROM "order_status" s
+                    WHERE s.order_id = ?
+                    ORDER BY s.status_datetime DESC, s.id DESC
+                    LIMIT 1
+                ), 'CREE') AS status
+            ), inserted AS (
+                INSERT INTO "order_status" (order_id, status, status_datetime)
+                SELECT ?, t.status, ?
+                FROM target t, current_order_status c
+                WHERE t.status IS NOT NULL AND t.status <> c.status
+                RETURNING status
+            )
+            SELECT c.status AS current_status, i.status AS inserted_status
+            FROM current_order_status c
+            LEFT JOIN inserted i ON true
+            """;
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                Order order = null;
+                DishOrder target = null;
+                try (PreparedStatement stmt = connection.prepareStatement(lockSql)) {
+                    stmt.setString(1, reference);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            if (order == null) {
+                                order = Order.builder()
+                                        .id(rs.getLong("order_id"))
+                                        .reference(reference)
+                                        .creationDateTime(rs.getTimestamp("creation_datetime").toLocalDateTime())
+                                        .dishOrders(new ArrayList<>())
+                                        .build();
+                            }
+                            long dishOrderId = rs.getLong("dish_order_id");
+                            if (rs.wasNull()) {
+                                continue;
+                            }
+                            String status = rs.getString("current_status");
+                            DishOrderStatus lineStatus = status != null ? DishOrderStatus.valueOf(status) : DishOrderStatus.CREE;
+                            DishOrder dishOrder = DishOrder.builder()
+                                    .id(dishOrderId)
+                                    .dish(Dish.builder()
+                                            .id(rs.getLong("dish_id"))
+                                            .name(rs.getString("dish_name"))
+                                            .price(rs.getDouble("dish_price"))
+                                            .build())
+                                    .quantity(rs.getInt("quantity"))
+                                    .status(lineStatus)
+                                    .statusHistory(new ArrayList<>(List.of(DishOrderStatusHistory.builder()
+                                            .status(lineStatus)
+                                            .build())))
+                                    .build();
+                            order.getDishOrders().add(dishOrder);
+                            // Première ligne du plat, comme l'ancien LIMIT 1
+                            if (target == null && dishId.equals(dishOrder.getDish().getId())) {
+                                target = dishOrder;
+                            }
+                        }
+                    }
+                }
+                if (order == null) {
+                    throw new NotFoundException("Order.reference=" + reference + " not found");
+                }
+                if (target == null) {
+                    throw new NotFoundException("Dish not found in order: " + dishId);
+                }
+
+                long orderId = order.getId();
+                long dishOrderId = target.getId();
+                DishOrderStatus currentStatus = target.getStatus();
+                if (!currentStatus.canTransitionTo(newStatus)) {
+                    throw new ClientException("Transition interdite de " + currentStatus + " vers " + newStatus);
+                }
+
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                try (PreparedStatement stmt = connection.prepareStatement(dishStatusSql)) {
+                    stmt.setLong(1, dishOrderId);
+                    stmt.setString(2, newStatus.name());
+                    stmt.setTimestamp(3, now);
+                    stmt.setLong(4, dishOrderId);
+                    stmt.setString(5, newStatus.name());
+                    stmt.setTimestamp(6, now);
+                    stmt.executeUpdate();
+                }
+
+                OrderStatus orderStatus;
+                boolean orderStatusChanged;
+                try (PreparedStatement stmt = connection.prepareStatement(orderStatusSql)) {
+                    stmt.setLong(1, orderId);
+                    stmt.setLong(2, orderId);
+                    stmt.setLong(3, orderId);
+                    stmt.setTimestamp(4, now);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        rs.next();
+                        String insertedStatus = rs.getString("inserted_status");
+                        orderStatusChanged = insertedStatus != null;
+                        orderStatus = OrderStatus.valueOf(orderStatusChanged ? insertedStatus : rs.getString("current_status"));
+                    }
+                }
+
+                // Commande servie : alimentation de l'agrégat des ventes dans la même transaction
+                if (orderStatusChanged && orderStatus == OrderStatus.SERVI) {
+                    dishSalesCrudOperations.addServedOrder(connection, orderId, now.toLocalDateTime().toLocalDate());
+                }
+
+                connection.commit();
+
+                target.setStatus(newStatus);
+                target.getStatusHistory().add(DishOrderStatusHistory.builder()
+                        .status(newStatus)
+                        .statusDateTime(now.toLocalDateTime())
+                        .build());
+                order.setStatus(orderStatus);
+                order.setStatusHistory(new ArrayList<>(List.of(OrderStatusHistory.builder()
+                        .status(orderStatus)
+                        .statusDateTime(orderStatusChanged ? now.toLocalDateTime() : null)
+                        .build())));
+                return order;
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+    }
+
     public boolean existsByReference(String reference) {
         try (Connection connection = dataSource.getConnection()) {
             String sql = "SELECT EXISTS(SELECT 1 FROM \"order\" WHERE reference = ?)";
@@ -390,6 +921,272 @@ private void updateDishOrders(Connection connection, Long orderId, List<DishOrde
     }
 
 
+    // Références déjà utilisées parmi celles demandées, en une requête
+    public Set<String> findExistingReferences(Collection<String> references) {
+        Set<String> existing = new HashSet<>();
+        if (references == null || references.isEmpty()) {
+            return existing;
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT reference FROM \"order\" WHERE reference = ANY(?)")) {
+            statement.setArray(1, connection.createArrayOf("varchar", references.toArray()));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    existing.add(resultSet.getString("reference"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+        return existing;
+    }
+
+    // Insertion groupée de nouvelles commandes (avec historique, lignes, statut et historique
+    // des lignes) en deux allers-retours quel que soit leur nombre : réservation des ids de
+    // order_dish (nextval / generate_series), puis un seul INSERT ... SELECT FROM UNNEST par
+    // table, enchaînés dans des CTE (les tables filles se rattachent aux commandes insérées par
+    // leur référence). Une référence prise entre-temps est ignorée (ON CONFLICT DO NOTHING)
+    // avec ses lignes, sans faire échouer le lot.
+    // Les références du lot doivent être distinctes. Retourne les commandes réellement insérées, ids renseignés.
+    public List<Order> insertAll(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                List<Order> inserted = insertAll(connection, orders);
+                connection.commit();
+                return inserted;
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+    }
+
+    private List<Order> insertAll(Connection connection, List<Order> orders) throws SQLException {
+        List<DishOrder> dishOrders = orders.stream()
+                .filter(order -> order.getDishOrders() != null)
+                .flatMap(order -> order.getDishOrders().stream())
+                .toList();
+        Long[] dishOrderIds = Sequences.nextValues(connection, "order_dish_id_seq", dishOrders.size());
+
+        List<Object> referenceValues = new ArrayList<>();
+        List<Object> creationValues = new ArrayList<>();
+        List<Object> orderStatusReferences = new ArrayList<>();
+        List<Object> orderStatusValues = new ArrayList<>();
+        List<Object> orderStatusDates = new ArrayList<>();
+        List<Object> lineReferences = new ArrayList<>();
+        List<Object> lineDishIds = new ArrayList<>();
+        List<Object> lineQuantities = new ArrayList<>();
+        List<Object> lineStatuses = new ArrayList<>();
+        List<Object> historyLineIds = new ArrayList<>();
+        List<Object> historyStatuses = new ArrayList<>();
+        List<Object> historyDates = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        int lineIndex = 0;
+        for (Order order : orders) {
+            referenceValues.add(order.getReference());
+            creationValues.add(Timestamp.valueOf(order.getCreationDateTime()));
+            if (order.getStatusHistory() != null) {
+                for (OrderStatusHistory entry : order.getStatusHistory()) {
+                    orderStatusReferences.add(order.getReference());
+                    orderStatusValues.add(entry.getStatus().name());
+                    orderStatusDates.add(Timestamp.valueOf(entry.getStatusDateTime()));
+                }
+            }
+            if (order.getDishOrders() == null) {
+                continue;
+            }
+            for (DishOrder dishOrder : order.getDishOrders()) {
+                dishOrder.setId(dishOrderIds[lineIndex++]);
+                DishOrderStatus status = dishOrder.getStatus() != null ? dishOrder.getStatus() : DishOrderStatus.CREE;
+                lineReferences.add(order.getReference());
+                lineDishIds.add(dishOrder.getDish().getId());
+                lineQuantities.add(dishOrder.getQuantity());
+                lineStatuses.add(status.name());
+                if (dishOrder.getStatusHistory() != null) {
+                    for (DishOrderStatusHistory history : dishOrder.getStatusHistory()) {
+                        historyLineIds.add(dishOrder.getId());
+                        historyStatuses.add(history.getStatus().name());
+                        historyDates.add(Timestamp.valueOf(history.getStatusDateTime()));
+                    }
+                }
+            }
+        }
+        List<Object> lineIds = dishOrders.stream().map(dishOrder -> (Object) dishOrder.getId()).toList();
+
+        // Les tables filles ne reprennent que les commandes effectivement insérées
+        String sql = """
+            WITH inserted_order AS (
+                INSERT INTO "order" (reference, creation_datetime)
+                SELECT * FROM UNNEST(?::varchar[], ?::timestamp[])
+                ON CONFLICT (reference) DO NOTHING
+                RETURNING id, reference
+            ), inserted_order_status AS (
+                INSERT INTO order_status (order_id, status, status_datetime)
+                SELECT o.id, s.status, s.status_datetime
+                FROM UNNEST(?::varchar[], ?::varchar[], ?::timestamp[]) AS s(reference, status, status_datetime)
+                JOIN inserted_order o ON o.reference = s.reference
+            ), inserted_line AS (
+                INSERT INTO order_dish (id, order_id, dish_id, quantity)
+                SELECT l.id, o.id, l.dish_id, l.quantity
+                FROM UNNEST(?::bigint[], ?::varchar[], ?::bigint[], ?::int[]) AS l(id, reference, dish_id, quantity)
+                JOIN inserted_order o ON o.reference = l.reference
+                RETURNING id
+            ), inserted_line_status AS (
+                INSERT INTO order_dish_status (order_dish_id, status, status_datetime)
+                SELECT l.id, l.status, ?
+                FROM UNNEST(?::bigint[], ?::varchar[]) AS l(id, status)
+                JOIN inserted_line i ON i.id = l.id
+            ), inserted_line_history AS (
+                INSERT INTO dish_order_status_history (dish_order_id, status, status_date_time)
+                SELECT h.dish_order_id, h.status, h.status_date_time
+                FROM UNNEST(?::bigint[], ?::varchar[], ?::timestamp[]) AS h(dish_order_id, status, status_date_time)
+                JOIN inserted_line i ON i.id = h.dish_order_id
+            )
+            SELECT id, reference FROM inserted_order
+            """;
+
+        Map<String, Long> insertedIds = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setArray(1, connection.createArrayOf("varchar", referenceValues.toArray()));
+            statement.setArray(2, connection.createArrayOf("timestamp", creationValues.toArray()));
+            statement.setArray(3, connection.createArrayOf("varchar", orderStatusReferences.toArray()));
+            statement.setArray(4, connection.createArrayOf("varchar", orderStatusValues.toArray()));
+            statement.setArray(5, connection.createArrayOf("timestamp", orderStatusDates.toArray()));
+            statement.setArray(6, connection.createArrayOf("bigint", lineIds.toArray()));
+            statement.setArray(7, connection.createArrayOf("varchar", lineReferences.toArray()));
+            statement.setArray(8, connection.createArrayOf("bigint", lineDishIds.toArray()));
+            statement.setArray(9, connection.createArrayOf("int4", lineQuantities.toArray()));
+            statement.setTimestamp(10, now);
+            statement.setArray(11, connection.createArrayOf("bigint", lineIds.toArray()));
+            statement.setArray(12, connection.createArrayOf("varchar", lineStatuses.toArray()));
+            statement.setArray(13, connection.createArrayOf("bigint", historyLineIds.toArray()));
+            statement.setArray(14, connection.createArrayOf("varchar", historyStatuses.toArray()));
+            statement.setArray(15, connection.createArrayOf("timestamp", historyDates.toArray()));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    insertedIds.put(resultSet.getString("reference"), resultSet.getLong("id"));
+                }
+            }
+        }
+        List<Order> inserted = new ArrayList<>();
+        for (Order order : orders) {
+            Long id = insertedIds.get(order.getReference());
+            if (id != null) {
+                order.setId(id);
+                inserted.add(order);
+            }
+        }
+        return inserted;
+    }
+
+    // Export de toutes les commandes (filtres optionnels) à mémoire constante : curseur côté
+    // serveur (autocommit désactivé + fetchSize), chaque ligne est passée à consumer dès sa
+    // lecture. Lignes triées par commande puis par plat ; statuts courants comme loadGraphs.
+    // La transaction reste ouverte pendant tout le téléchargement : au-delà de exportMaxDuration
+    // l'export est interrompu (réponse tronquée), et PostgreSQL ferme la session si le client
+    // cesse de lire plus longtemps que ce délai. Les exports de plus de
+    // DATABASE_POOL_LEAK_DETECTION_MS sont signalés par Hikari comme fuites possibles.
+    public void exportAll(LocalDate from, LocalDate to, OrderStatus status, Consumer<OrderExportLine> consumer) {
+        StringBuilder sql = new StringBuilder("""
+            SELECT o.id AS order_id, o.reference, o.creation_datetime,
+                   os.status AS order_status,
+                   od.id AS order_dish_id, od.dish_id, d.name AS dish_name, d.price AS unit_price, od.quantity,
+                   ods.status AS dish_status
+            FROM "order" o
+            LEFT JOIN LATERAL (
+                SELECT s.status
+                FROM "order_status" s
+                WHERE s.order_id = o.id
+                ORDER BY s.status_datetime DESC, s.id DESC
+                LIMIT 1
+            ) os ON true
+            LEFT JOIN order_dish od ON od.order_id = o.id
+            LEFT JOIN dish d ON d.id = od.dish_id
+            LEFT JOIN LATERAL (
+                SELECT s.status
+                FROM order_dish_status s
+                WHERE s.order_dish_id = od.id
+                ORDER BY s.status_datetime DESC, s.id DESC
+                LIMIT 1
+            ) ods ON true
+            WHERE true
+            """);
+        List<Object> parameters = new ArrayList<>();
+        if (from != null) {
+            sql.append(" AND o.creation_datetime >= ?");
+            parameters.add(Timestamp.valueOf(from.atStartOfDay()));
+        }
+        if (to != null) {
+            sql.append(" AND o.creation_datetime < ?");
+            parameters.add(Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+        }
+        if (status != null) {
+            sql.append(" AND COALESCE(os.status, 'CREE') = ?");
+            parameters.add(status.name());
+        }
+        sql.append(" ORDER BY o.id, od.id");
+
+        try (Connection connection = dataSource.getConnection()) {
+            // Sans transaction ouverte, le pilote PostgreSQL lit tout le résultat d'un coup
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            long deadline = System.nanoTime() + exportMaxDuration.toNanos();
+            try (Statement timeouts = connection.createStatement()) {
+                // Bornes côté serveur, limitées à cette transaction
+                timeouts.execute("SET LOCAL statement_timeout = " + exportMaxDuration.toMillis());
+                timeouts.execute("SET LOCAL idle_in_transaction_session_timeout = " + exportMaxDuration.toMillis());
+            }
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(exportFetchSize);
+                for (int i = 0; i < parameters.size(); i++) {
+                    statement.setObject(i + 1, parameters.get(i));
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        if (System.nanoTime() - deadline > 0) {
+                            throw new ServerException("Order export exceeded " + exportMaxDuration);
+                        }
+                        consumer.accept(toExportLine(resultSet));
+                    }
+                }
+            } finally {
+                connection.rollback();
+                connection.setReadOnly(false);
+            }
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+    }
+
+    private static OrderExportLine toExportLine(ResultSet resultSet) throws SQLException {
+        String orderStatus = resultSet.getString("order_status");
+        String dishStatus = resultSet.getString("dish_status");
+        long dishOrderId = resultSet.getLong("order_dish_id");
+        boolean hasDish = !resultSet.wasNull();
+        return OrderExportLine.builder()
+                .orderId(resultSet.getLong("order_id"))
+                .reference(resultSet.getString("reference"))
+                .creationDatetime(resultSet.getTimestamp("creation_datetime").toLocalDateTime())
+                .orderStatus(orderStatus != null ? OrderStatus.valueOf(orderStatus) : OrderStatus.CREE)
+                .dishOrderId(hasDish ? dishOrderId : null)
+                .dishId(hasDish ? resultSet.getLong("dish_id") : null)
+                .dishName(hasDish ? resultSet.getString("dish_name") : null)
+                .unitPrice(hasDish ? resultSet.getDouble("unit_price") : null)
+                .quantity(hasDish ? resultSet.getInt("quantity") : null)
+                .dishStatus(hasDish ? (dishStatus != null ? DishOrderStatus.valueOf(dishStatus) : DishOrderStatus.CREE) : null)
+                .build();
+    }
+
+
     public List<Order> findByStatus(OrderStatus status) {
     List<Order> orders = new ArrayList<>();
     String sql = """
@@ -413,12 +1210,10 @@ private void updateDishOrders(Connection connection, Long orderId, List<DishOrde
         
         try (ResultSet resultSet = statement.executeQuery()) {
             while (resultSet.next()) {
-                Order order = orderMapper.apply(resultSet);
-                order.setStatusHistory(getStatusHistory(order.getId()));
-                order.setDishOrders(dishOrderCrudOperations.findByOrderId(order.getId()));
-                orders.add(order);
+                orders.add(orderMapper.apply(resultSet));
             }
         }
+        loadGraphs(connection, orders);
     } catch (SQLException e) {
         throw new ServerException(e);
     }
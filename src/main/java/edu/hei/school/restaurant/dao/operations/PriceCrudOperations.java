@@ -10,7 +10,10 @@ import org.springframework.stereotype.Repository;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 public class PriceCrudOperations implements CrudOperations<Price> {
@@ -24,6 +27,25 @@ public class PriceCrudOperations implements CrudOperations<Price> {
         throw new UnsupportedOperationException("Not supported yet.");
     }
 
+    @Override
+    public List<Price> getAllAfter(Long afterId, int size) {
+        List<Price> prices = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("select p.id, p.amount, p.date_value from price p"
+                     + " where p.id > ? order by p.id limit ?")) {
+            statement.setLong(1, afterId != null ? afterId : 0L);
+            statement.setInt(2, size);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    prices.add(priceMapper.apply(resultSet));
+                }
+                return prices;
+            }
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+    }
+
     @Override
     public Price findById(Long id) {
         throw new UnsupportedOperationException("Not supported yet.");
@@ -75,4 +97,26 @@ public class PriceCrudOperations implements CrudOperations<Price> {
             throw new ServerException(e);
         }
     }
+
+    // Prix de plusieurs ingrédients en une requête, regroupés par id d'ingrédient
+    public Map<Long, List<Price>> findByIdIngredients(Collection<Long> idIngredients) {
+        Map<Long, List<Price>> pricesByIngredient = new HashMap<>();
+        if (idIngredients.isEmpty()) {
+            return pricesByIngredient;
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("select p.id, p.id_ingredient, p.amount, p.date_value"
+                     + " from price p where p.id_ingredient = any(?) order by p.id_ingredient, p.id")) {
+            statement.setArray(1, connection.createArrayOf("bigint", idIngredients.toArray()));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    pricesByIngredient.computeIfAbsent(resultSet.getLong("id_ingredient"), id -> new ArrayList<>())
+                            .add(priceMapper.apply(resultSet));
+                }
+                return pricesByIngredient;
+            }
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+    }
 }
@@ -0,0 +1,40 @@
+package edu.hei.school.restaurant.dao.operations;
+
+import edu.hei.school.restaurant.service.exception.ServerException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Réservation d'ids pour les écritures groupées qui doivent connaître les clés avant
+ * d'insérer (lignes filles, COPY) : count valeurs de la séquence en un aller-retour.
+ * Les valeurs non utilisées sont perdues, comme pour tout nextval.
+ */
+final class Sequences {
+
+    private Sequences() {
+    }
+
+    static Long[] nextValues(Connection connection, String sequence, int count) throws SQLException {
+        Long[] ids = new Long[count];
+        if (count == 0) {
+            return ids;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT nextval(?::regclass) FROM generate_series(1, ?)")) {
+            statement.setString(1, sequence);
+            statement.setInt(2, count);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                for (int i = 0; i < count; i++) {
+                    if (!resultSet.next()) {
+                        throw new ServerException("Failed to reserve ids from " + sequence);
+                    }
+                    ids[i] = resultSet.getLong(1);
+                }
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,119 @@
+package edu.hei.school.restaurant.dao.operations;
+
+import edu.hei.school.restaurant.dao.DataSource;
+import edu.hei.school.restaurant.dao.mapper.StockBalanceCheckpointMapper;
+import edu.hei.school.restaurant.model.StockBalanceCheckpoint;
+import edu.hei.school.restaurant.service.exception.ServerException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+@Repository
+@RequiredArgsConstructor
+public class StockBalanceCheckpointCrudOperations {
+    // Verrou consultatif Postgres : exclusif pendant la création des checkpoints, partagé
+    // pendant l'écriture des mouvements. Un mouvement antidaté ne peut donc pas échapper
+    // à la fois au checkpoint en cours et à l'invalidation.
+    public static final long STOCK_LEDGER_LOCK = 20_250_410L;
+
+    private final DataSource dataSource;
+    private final StockBalanceCheckpointMapper checkpointMapper;
+
+    // Dernier checkpoint de chaque ingrédient demandé, par id d'ingrédient (absent si aucun)
+    public Map<Long, StockBalanceCheckpoint> findLatestByIdIngredients(Collection<Long> idIngredients) {
+        Map<Long, StockBalanceCheckpoint> latestByIngredient = new HashMap<>();
+        if (idIngredients.isEmpty()) {
+            return latestByIngredient;
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "select distinct on (c.id_ingredient) c.id, c.id_ingredient, c.checkpoint_datetime, c.balance"
+                             + " from stock_balance_checkpoint c where c.id_ingredient = any(?)"
+                             + " order by c.id_ingredient, c.checkpoint_datetime desc")) {
+            statement.setArray(1, connection.createArrayOf("bigint", idIngredients.toArray()));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    latestByIngredient.put(resultSet.getLong("id_ingredient"), checkpointMapper.apply(resultSet));
+                }
+                return latestByIngredient;
+            }
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+    }
+
+    // Crée un checkpoint à l'instant donné pour chaque ingrédient : dernier checkpoint
+    // antérieur + mouvements depuis celui-ci. Retourne le nombre de checkpoints créés.
+    public int createCheckpoints(Instant checkpointDatetime) {
+        String sql = """
+            INSERT INTO stock_balance_checkpoint (id_ingredient, checkpoint_datetime, balance)
+            SELECT i.id, ?, COALESCE(c.balance, 0) + COALESCE(m.delta, 0)
+            FROM ingredient i
+            LEFT JOIN LATERAL (
+                SELECT c.balance, c.checkpoint_datetime
+                FROM stock_balance_checkpoint c
+                WHERE c.id_ingredient = i.id AND c.checkpoint_datetime <= ?
+                ORDER BY c.checkpoint_datetime DESC
+                LIMIT 1
+            ) c ON true
+            LEFT JOIN LATERAL (
+                SELECT SUM(CASE s.movement_type WHEN 'IN' THEN s.quantity
+                                                WHEN 'OUT' THEN -s.quantity
+                                                ELSE 0 END) AS delta
+                FROM stock_movement s
+                WHERE s.id_ingredient = i.id
+                  AND (c.checkpoint_datetime IS NULL OR s.creation_datetime > c.checkpoint_datetime)
+                  AND s.creation_datetime <= ?
+            ) m ON true
+            ON CONFLICT (id_ingredient, checkpoint_datetime) DO NOTHING
+            """;
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement lock = connection.prepareStatement("SELECT pg_advisory_xact_lock(?)");
+                 PreparedStatement statement = connection.prepareStatement(sql)) {
+                lock.setLong(1, STOCK_LEDGER_LOCK);
+                lock.execute();
+
+                Timestamp at = Timestamp.from(checkpointDatetime);
+                statement.setTimestamp(1, at);
+                statement.setTimestamp(2, at);
+                statement.setTimestamp(3, at);
+                int created = statement.executeUpdate();
+                connection.commit();
+                return created;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+    }
+
+    // Supprime, pour chaque ingrédient, les checkpoints qui ne tiennent pas compte d'un
+    // mouvement antidaté (checkpoint_datetime >= date du plus ancien mouvement ajouté).
+    // Doit être appelé dans la transaction qui insère les mouvements.
+    public void invalidateFrom(Connection connection, Map<Long, Instant> earliestMovementByIngredient) throws SQLException {
+        if (earliestMovementByIngredient.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "DELETE FROM stock_balance_checkpoint WHERE id_ingredient = ? AND checkpoint_datetime >= ?")) {
+            for (Map.Entry<Long, Instant> entry : earliestMovementByIngredient.entrySet()) {
+                statement.setLong(1, entry.getKey());
+                statement.setTimestamp(2, Timestamp.from(entry.getValue()));
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+}
@@ -1,15 +1,24 @@
 package edu.hei.school.restaurant.dao.operations;
 
+import edu.hei.school.restaurant.dao.CopyWriter;
 import edu.hei.school.restaurant.dao.DataSource;
 import edu.hei.school.restaurant.dao.mapper.StockMovementMapper;
+import edu.hei.school.restaurant.model.Ingredient;
+import edu.hei.school.restaurant.model.StockBalanceCheckpoint;
 import edu.hei.school.restaurant.model.StockMovement;
 import edu.hei.school.restaurant.service.exception.ServerException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import java.sql.*;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static java.time.Instant.now;
 
@@ -19,78 +28,203 @@ public class StockMovementCrudOperations implements CrudOperations<StockMovement
     private DataSource dataSource;
     @Autowired
     private StockMovementMapper stockMovementMapper;
+    @Autowired
+    private StockBalanceCheckpointCrudOperations checkpointCrudOperations;
+    // Au-delà de ce nombre de mouvements, saveAll passe par COPY
+    @Value("${stock.movement.copy-threshold:1000}")
+    private int copyThreshold;
 
     @Override
     public List<StockMovement> getAll(int page, int size) {
         throw new UnsupportedOperationException("Not supported yet.");
     }
 
+    @Override
+    public List<StockMovement> getAllAfter(Long afterId, int size) {
+        List<StockMovement> stockMovements = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "select s.id, s.quantity, s.unit, s.movement_type, s.creation_datetime from stock_movement s"
+                             + " where s.id > ? order by s.id limit ?")) {
+            statement.setLong(1, afterId != null ? afterId : 0L);
+            statement.setInt(2, size);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    stockMovements.add(stockMovementMapper.apply(resultSet));
+                }
+                return stockMovements;
+            }
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+    }
+
     @Override
     public StockMovement findById(Long id) {
         throw new UnsupportedOperationException("Not supported yet.");
     }
 
 
+    // Écriture atomique d'un lot de mouvements : tout est enregistré ou rien. Retourne les lignes
+    // persistées (id, date de création) dans l'ordre du lot, sans relire l'historique.
+    // Jusqu'à copyThreshold mouvements, un INSERT ... SELECT FROM UNNEST ... RETURNING ;
+    // au-delà (grosses livraisons), les ids sont réservés sur la séquence puis les lignes
+    // chargées par COPY.
     @Override
-public List<StockMovement> saveAll(List<StockMovement> entities) {
-    List<StockMovement> stockMovements = new ArrayList<>();
-    String sql = """
-            insert into stock_movement (quantity, unit, movement_type, creation_datetime, id_ingredient)
-            values (?, ?, ?, ?, ?)
-            returning id, quantity, unit, movement_type, creation_datetime, id_ingredient""";
-
-    try (Connection connection = dataSource.getConnection();
-         PreparedStatement statement = connection.prepareStatement(sql)) {
-        
+    public List<StockMovement> saveAll(List<StockMovement> entities) {
+        if (entities.isEmpty()) {
+            return new ArrayList<>();
+        }
+        // Contrôle avant toute écriture ; un mouvement sans date est daté de l'enregistrement
+        Instant now = now();
         for (StockMovement entityToSave : entities) {
-            try {
-                // Vérifiez que les champs obligatoires sont présents
-                if (entityToSave.getQuantity() == null || entityToSave.getUnit() == null || 
+            if (entityToSave.getQuantity() == null || entityToSave.getUnit() == null ||
                     entityToSave.getMovementType() == null || entityToSave.getIngredient() == null) {
-                    throw new ServerException("Missing required stock movement fields");
-                }
+                throw new ServerException("Missing required stock movement fields");
+            }
+            if (entityToSave.getCreationDatetime() == null) {
+                entityToSave.setCreationDatetime(now);
+            }
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement lock = connection.prepareStatement("SELECT pg_advisory_xact_lock_shared(?)")) {
+                // Verrou partagé : pas de création de checkpoint pendant l'écriture des mouvements
+                lock.setLong(1, StockBalanceCheckpointCrudOperations.STOCK_LEDGER_LOCK);
+                lock.execute();
+
+                List<StockMovement> saved = entities.size() > copyThreshold
+                        ? copyAll(connection, entities)
+                        : insertAll(connection, entities);
 
-                statement.setDouble(1, entityToSave.getQuantity());
-                statement.setObject(2, entityToSave.getUnit().name(), java.sql.Types.OTHER);
-                statement.setObject(3, entityToSave.getMovementType().name(), java.sql.Types.OTHER);
-                statement.setTimestamp(4, Timestamp.from(entityToSave.getCreationDatetime()));
-                statement.setLong(5, entityToSave.getIngredient().getId());
-                statement.addBatch(); // Ajoutez le mouvement au batch
-            } catch (SQLException e) {
-                // Log l'erreur et continuez avec le prochain mouvement
-                System.err.println("Erreur lors de l'insertion du mouvement : " + e.getMessage());
+                // Les checkpoints postérieurs à un mouvement antidaté ne sont plus valides
+                Map<Long, Instant> earliestMovementByIngredient = new HashMap<>();
+                for (StockMovement stockMovement : saved) {
+                    earliestMovementByIngredient.merge(stockMovement.getIngredient().getId(),
+                            stockMovement.getCreationDatetime(), (a, b) -> a.isBefore(b) ? a : b);
+                }
+                checkpointCrudOperations.invalidateFrom(connection, earliestMovementByIngredient);
+                connection.commit();
+                return saved;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
             }
+        } catch (SQLException e) {
+            throw new ServerException(e);
+        }
+    }
+
+    private List<StockMovement> insertAll(Connection connection, List<StockMovement> entities) throws SQLException {
+        String sql = """
+                insert into stock_movement (quantity, unit, movement_type, creation_datetime, id_ingredient)
+                select m.quantity, m.unit::unit, m.movement_type::stock_movement_type, m.creation_datetime, m.id_ingredient
+                from unnest(?::numeric[], ?::varchar[], ?::varchar[], ?::timestamp[], ?::bigint[]) with ordinality
+                    as m(quantity, unit, movement_type, creation_datetime, id_ingredient, position)
+                order by m.position
+                returning id, quantity, unit, movement_type, creation_datetime, id_ingredient""";
+
+        Map<Long, Ingredient> ingredients = new HashMap<>();
+        Object[] quantities = new Object[entities.size()];
+        Object[] units = new Object[entities.size()];
+        Object[] movementTypes = new Object[entities.size()];
+        Object[] creationDatetimes = new Object[entities.size()];
+        Object[] ingredientIds = new Object[entities.size()];
+        for (int i = 0; i < entities.size(); i++) {
+            StockMovement entityToSave = entities.get(i);
+            quantities[i] = entityToSave.getQuantity();
+            units[i] = entityToSave.getUnit().name();
+            movementTypes[i] = entityToSave.getMovementType().name();
+            creationDatetimes[i] = Timestamp.from(entityToSave.getCreationDatetime());
+            ingredientIds[i] = entityToSave.getIngredient().getId();
+            ingredients.putIfAbsent(entityToSave.getIngredient().getId(), entityToSave.getIngredient());
         }
 
-        // Exécutez le batch et récupérez les résultats
-        int[] results = statement.executeBatch(); // Exécutez le batch
-        for (int result : results) {
-            if (result >= 0) {
-                // Si l'insertion a réussi, vous pouvez récupérer les résultats ici
-                // (si vous avez besoin de faire quelque chose avec les IDs retournés)
+        List<StockMovement> saved = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setArray(1, connection.createArrayOf("numeric", quantities));
+            statement.setArray(2, connection.createArrayOf("varchar", units));
+            statement.setArray(3, connection.createArrayOf("varchar", movementTypes));
+            statement.setArray(4, connection.createArrayOf("timestamp", creationDatetimes));
+            statement.setArray(5, connection.createArrayOf("bigint", ingredientIds));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    StockMovement stockMovement = stockMovementMapper.apply(resultSet);
+                    stockMovement.setIngredient(ingredients.get(resultSet.getLong("id_ingredient")));
+                    saved.add(stockMovement);
+                }
             }
         }
+        // Ids tirés de la séquence dans l'ordre d'insertion
+        saved.sort(Comparator.comparing(StockMovement::getId));
+        return saved;
+    }
 
-        return stockMovements; // Retournez les mouvements enregistrés
-    } catch (SQLException e) {
-        throw new ServerException(e);
+    private List<StockMovement> copyAll(Connection connection, List<StockMovement> entities) throws SQLException {
+        Long[] ids = Sequences.nextValues(connection, "stock_movement_id_seq", entities.size());
+        try (CopyWriter copy = new CopyWriter(connection, "stock_movement",
+                "id, quantity, unit, movement_type, creation_datetime, id_ingredient")) {
+            for (int i = 0; i < entities.size(); i++) {
+                StockMovement entityToSave = entities.get(i);
+                copy.field(ids[i])
+                        .field(entityToSave.getQuantity().doubleValue())
+                        .field(entityToSave.getUnit().name())
+                        .field(entityToSave.getMovementType().name())
+                        .field(Timestamp.from(entityToSave.getCreationDatetime()))
+                        .field(entityToSave.getIngredient().getId().longValue())
+                        .endRow();
+            }
+        }
+        // Rien n'est généré côté base : les lignes persistées sont celles du lot, ids renseignés
+        List<StockMovement> saved = new ArrayList<>();
+        for (int i = 0; i < entities.size(); i++) {
+            StockMovement entityToSave = entities.get(i);
+            StockMovement stockMovement = new StockMovement();
+            stockMovement.setId(ids[i]);
+            stockMovement.setQuantity(entityToSave.getQuantity());
+            stockMovement.setUnit(entityToSave.getUnit());
+            stockMovement.setMovementType(entityToSave.getMovementType());
+            stockMovement.setCreationDatetime(entityToSave.getCreationDatetime());
+            stockMovement.setIngredient(entityToSave.getIngredient());
+            saved.add(stockMovement);
+        }
+        return saved;
     }
-}
 
-    
-    public List<StockMovement> findByIdIngredient(Long idIngredient) {
-        List<StockMovement> stockMovements = new ArrayList<>();
+
+    // Mouvements de plusieurs ingrédients postérieurs à leur checkpoint (tous pour un ingrédient
+    // absent de checkpointByIngredient), en une requête, regroupés par id d'ingrédient et triés
+    // par date de création
+    public Map<Long, List<StockMovement>> findAfterCheckpoints(Collection<Long> idIngredients,
+                                                               Map<Long, StockBalanceCheckpoint> checkpointByIngredient) {
+        Map<Long, List<StockMovement>> stockMovementsByIngredient = new HashMap<>();
+        if (idIngredients.isEmpty()) {
+            return stockMovementsByIngredient;
+        }
+        Long[] ids = idIngredients.toArray(Long[]::new);
+        Timestamp[] since = new Timestamp[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            StockBalanceCheckpoint checkpoint = checkpointByIngredient.get(ids[i]);
+            since[i] = checkpoint != null ? Timestamp.from(checkpoint.getCheckpointDatetime()) : null;
+        }
+        String sql = """
+            select s.id, s.id_ingredient, s.quantity, s.unit, s.movement_type, s.creation_datetime
+            from unnest(?::bigint[], ?::timestamp[]) as c(id_ingredient, checkpoint_datetime)
+            join stock_movement s on s.id_ingredient = c.id_ingredient
+                and (c.checkpoint_datetime is null or s.creation_datetime > c.checkpoint_datetime)
+            order by s.id_ingredient, s.creation_datetime asc, s.id asc
+            """;
         try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(
-                     "select s.id, s.quantity, s.unit, s.movement_type, s.creation_datetime from stock_movement s"
-                             + " join ingredient i on s.id_ingredient = i.id"
-                             + " where s.id_ingredient = ?")) {
-            statement.setLong(1, idIngredient);
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setArray(1, connection.createArrayOf("bigint", ids));
+            statement.setArray(2, connection.createArrayOf("timestamp", since));
             try (ResultSet resultSet = statement.executeQuery()) {
                 while (resultSet.next()) {
-                    stockMovements.add(stockMovementMapper.apply(resultSet));
+                    stockMovementsByIngredient.computeIfAbsent(resultSet.getLong("id_ingredient"), id -> new ArrayList<>())
+                            .add(stockMovementMapper.apply(resultSet));
                 }
-                return stockMovements;
+                return stockMovementsByIngredient;
             }
         } catch (SQLException e) {
             throw new ServerException(e);
@@ -1,10 +1,16 @@
 // DishOrderRestController.java
 package edu.hei.school.restaurant.endpoint;
 
+import edu.hei.school.restaurant.endpoint.mapper.CursorMapper;
 import edu.hei.school.restaurant.endpoint.mapper.DishOrderWithTimestampsMapper;
 import edu.hei.school.restaurant.endpoint.rest.DishOrderWithTimestampsRest;
+import edu.hei.school.restaurant.model.CursorPage;
+import edu.hei.school.restaurant.model.DishOrderWithTimestamps;
 import edu.hei.school.restaurant.service.DishOrderService;
+import edu.hei.school.restaurant.service.exception.ClientException;
+import edu.hei.school.restaurant.service.exception.ServerException;
 import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -19,13 +25,35 @@ import java.util.stream.Collectors;
 public class DishOrderRestController {
     private final DishOrderService dishOrderService;
     private final DishOrderWithTimestampsMapper mapper;
+    private final CursorMapper cursorMapper;
 
     @GetMapping
-    public List<DishOrderWithTimestampsRest> getAllWithTimestamps(
+    public ResponseEntity<Object> getAllWithTimestamps(
             @RequestParam(defaultValue = "1") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "10") int size) {
-        return dishOrderService.findAllWithTimestamps(page, size).stream()
-                .map(mapper::toRest)
-                .collect(Collectors.toList());
+        try {
+            // Sans "cursor", pagination LIMIT/OFFSET par "page" (1-based) ; avec "cursor" (vide pour
+            // la première page), pagination keyset et curseur suivant dans l'en-tête X-Next-Cursor
+            if (cursor == null) {
+                return ResponseEntity.ok(dishOrderService.findAllWithTimestamps(page, size).stream()
+                        .map(mapper::toRest)
+                        .collect(Collectors.toList()));
+            }
+            CursorPage<DishOrderWithTimestamps> dishOrders =
+                    dishOrderService.findAllWithTimestampsAfter(cursorMapper.toAfterId(cursor), size);
+            List<DishOrderWithTimestampsRest> dishOrderRests = dishOrders.getItems().stream()
+                    .map(mapper::toRest)
+                    .collect(Collectors.toList());
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (dishOrders.getNextAfterId() != null) {
+                response.header(CursorMapper.NEXT_CURSOR_HEADER, cursorMapper.toCursor(dishOrders.getNextAfterId()));
+            }
+            return response.body(dishOrderRests);
+        } catch (ClientException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ServerException e) {
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,9 +1,12 @@
 package edu.hei.school.restaurant.endpoint;
 
+import edu.hei.school.restaurant.endpoint.mapper.CursorMapper;
 import edu.hei.school.restaurant.endpoint.mapper.DishRestMapper;
 import edu.hei.school.restaurant.endpoint.rest.CreateOrUpdateDish;
+import edu.hei.school.restaurant.endpoint.rest.DishAvailabilityRest;
 import edu.hei.school.restaurant.endpoint.rest.DishRest;
 import edu.hei.school.restaurant.endpoint.rest.UpdateDishIngredients;
+import edu.hei.school.restaurant.model.CursorPage;
 import edu.hei.school.restaurant.model.Dish;
 import edu.hei.school.restaurant.model.DishIngredient;
 import edu.hei.school.restaurant.model.Ingredient;
@@ -13,11 +16,14 @@ import edu.hei.school.restaurant.service.exception.NotFoundException;
 import edu.hei.school.restaurant.service.exception.ServerException;
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static org.springframework.http.HttpStatus.NOT_FOUND;
@@ -27,17 +33,33 @@ import static org.springframework.http.HttpStatus.NOT_FOUND;
 public class DishRestController {
     private final DishService dishService;
     private final DishRestMapper dishRestMapper;
+    private final CursorMapper cursorMapper;
 
     @GetMapping("/dishes")
     public ResponseEntity<Object> getDishes(
         @RequestParam(name = "page", defaultValue = "0") int page,
+        @RequestParam(name = "cursor", required = false) String cursor,
         @RequestParam(name = "size", defaultValue = "20") int size) {
         try {
-            List<Dish> dishes = dishService.getDishes(page, size);
-            List<DishRest> dishRests = dishes.stream()
-                    .map(dishRestMapper::toRest)
+            // Sans "cursor", pagination LIMIT/OFFSET par "page" (0-based) ; avec "cursor" (vide pour
+            // la première page), pagination keyset et curseur suivant dans l'en-tête X-Next-Cursor
+            if (cursor == null) {
+                List<Dish> dishes = dishService.getDishes(page, size);
+                Map<Long, Integer> availableQuantities = dishService.getAvailableQuantities(dishes);
+                return ResponseEntity.ok(dishes.stream()
+                        .map(dish -> dishRestMapper.toRest(dish, availableQuantities.getOrDefault(dish.getId(), 0)))
+                        .collect(Collectors.toList()));
+            }
+            CursorPage<Dish> dishes = dishService.getDishesAfter(cursorMapper.toAfterId(cursor), size);
+            Map<Long, Integer> availableQuantities = dishService.getAvailableQuantities(dishes.getItems());
+            List<DishRest> dishRests = dishes.getItems().stream()
+                    .map(dish -> dishRestMapper.toRest(dish, availableQuantities.getOrDefault(dish.getId(), 0)))
                     .collect(Collectors.toList());
-            return ResponseEntity.ok(dishRests);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (dishes.getNextAfterId() != null) {
+                response.header(CursorMapper.NEXT_CURSOR_HEADER, cursorMapper.toCursor(dishes.getNextAfterId()));
+            }
+            return response.body(dishRests);
         } catch (ClientException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         } catch (ServerException e) {
@@ -45,6 +67,19 @@ public class DishRestController {
         }
     }
 
+    // Portions encore vendables pour toute la carte
+    @GetMapping("/dishes/availability")
+    public ResponseEntity<Object> getDishesAvailability() {
+        try {
+            List<DishAvailabilityRest> availabilities = dishService.getAvailabilities().stream()
+                    .map(dishRestMapper::toRest)
+                    .toList();
+            return ResponseEntity.ok(availabilities);
+        } catch (ServerException e) {
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
     @PostMapping("/dishes")
 public ResponseEntity<Object> createDish(@RequestBody CreateOrUpdateDish dishToCreate) {
     try {
@@ -103,6 +138,25 @@ public ResponseEntity<Object> createDishesBatch(
     }
 }
 
+    // Temps de traitement (EN_PREPARATION -> TERMINE) : average, minimum, maximum, p50 ou p95
+    @GetMapping("/dishes/{id}/processingTime")
+    public ResponseEntity<Object> getProcessingTime(
+            @PathVariable(name = "id") Long dishId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "seconds") String unit,
+            @RequestParam(defaultValue = "average") String method) {
+        try {
+            return ResponseEntity.ok(dishService.getProcessingTime(dishId, startDate, endDate, unit, method));
+        } catch (ClientException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (NotFoundException e) {
+            return ResponseEntity.status(NOT_FOUND).body(e.getMessage());
+        } catch (ServerException e) {
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
     @PutMapping("/dishes/{id}/ingredients")
     public ResponseEntity<Object> updateDishIngredients(
             @PathVariable(name = "id") Long dishId,
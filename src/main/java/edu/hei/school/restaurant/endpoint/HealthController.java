@@ -1,12 +1,23 @@
 package edu.hei.school.restaurant.endpoint;
 
+import edu.hei.school.restaurant.dao.DataSource;
+import edu.hei.school.restaurant.dao.PoolStatistics;
+import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
+@RequiredArgsConstructor
 public class HealthController {
+    private final DataSource dataSource;
+
     @GetMapping("/ping")
     public String ping() {
         return "pong";
     }
+
+    @GetMapping("/health/pool")
+    public PoolStatistics poolStatistics() {
+        return dataSource.getPoolStatistics();
+    }
 }
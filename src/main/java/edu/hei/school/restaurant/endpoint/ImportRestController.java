@@ -0,0 +1,93 @@
+package edu.hei.school.restaurant.endpoint;
+
+import edu.hei.school.restaurant.endpoint.mapper.ImportProgressRestMapper;
+import edu.hei.school.restaurant.model.ImportFormat;
+import edu.hei.school.restaurant.model.ImportProgress;
+import edu.hei.school.restaurant.service.ImportRegistry;
+import edu.hei.school.restaurant.service.IngredientImportService;
+import edu.hei.school.restaurant.service.exception.ClientException;
+import edu.hei.school.restaurant.service.exception.ServerException;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+// Imports en flux (NDJSON par défaut, ou CSV avec Content-Type: text/csv) : le corps de la
+// requête est lu au fil de l'eau, sans être chargé en mémoire. La réponse est le rapport final ;
+// GET /imports suit les imports en cours.
+@RestController
+@RequiredArgsConstructor
+public class ImportRestController {
+    private final IngredientImportService ingredientImportService;
+    private final ImportRegistry importRegistry;
+    private final ImportProgressRestMapper importProgressRestMapper;
+
+    @PostMapping("/imports/stockMovements")
+    public ResponseEntity<Object> importStockMovements(HttpServletRequest request) {
+        try {
+            ImportProgress progress = ingredientImportService.importStockMovements(
+                    request.getInputStream(), toFormat(request.getContentType()));
+            return ResponseEntity.ok().body(importProgressRestMapper.toRest(progress));
+        } catch (ClientException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ServerException | IOException e) {
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/imports/prices")
+    public ResponseEntity<Object> importPrices(HttpServletRequest request) {
+        try {
+            ImportProgress progress = ingredientImportService.importPrices(
+                    request.getInputStream(), toFormat(request.getContentType()));
+            return ResponseEntity.ok().body(importProgressRestMapper.toRest(progress));
+        } catch (ClientException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ServerException | IOException e) {
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
+    // Imports en cours et derniers imports terminés, du plus récent au plus ancien
+    @GetMapping("/imports")
+    public ResponseEntity<Object> getImports() {
+        return ResponseEntity.ok().body(importRegistry.findAll().stream()
+                .map(importProgressRestMapper::toRest)
+                .toList());
+    }
+
+    @GetMapping("/imports/{id}")
+    public ResponseEntity<Object> getImport(@PathVariable long id) {
+        return importRegistry.findById(id)
+                .<ResponseEntity<Object>>map(progress -> ResponseEntity.ok().body(importProgressRestMapper.toRest(progress)))
+                .orElseGet(() -> ResponseEntity.status(NOT_FOUND).body("Import.id=" + id + " not found"));
+    }
+
+    private static ImportFormat toFormat(String contentType) {
+        if (contentType == null) {
+            return ImportFormat.NDJSON;
+        }
+        MediaType mediaType;
+        try {
+            mediaType = MediaType.parseMediaType(contentType);
+        } catch (IllegalArgumentException e) {
+            throw new ClientException("Invalid Content-Type " + contentType);
+        }
+        if ("csv".equalsIgnoreCase(mediaType.getSubtype())) {
+            return ImportFormat.CSV;
+        }
+        if ("x-ndjson".equalsIgnoreCase(mediaType.getSubtype()) || "json".equalsIgnoreCase(mediaType.getSubtype())
+                || MediaType.TEXT_PLAIN.equalsTypeAndSubtype(mediaType)) {
+            return ImportFormat.NDJSON;
+        }
+        throw new ClientException("Unsupported Content-Type " + contentType + ", expected application/x-ndjson or text/csv");
+    }
+}
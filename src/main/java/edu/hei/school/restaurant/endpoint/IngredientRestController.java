@@ -1,10 +1,12 @@
 package edu.hei.school.restaurant.endpoint;
 
+import edu.hei.school.restaurant.endpoint.mapper.CursorMapper;
 import edu.hei.school.restaurant.endpoint.mapper.IngredientRestMapper;
 import edu.hei.school.restaurant.endpoint.rest.CreateIngredientPrice;
 import edu.hei.school.restaurant.endpoint.rest.CreateOrUpdateIngredient;
 import edu.hei.school.restaurant.endpoint.rest.CreateStockMovement;
 import edu.hei.school.restaurant.endpoint.rest.IngredientRest;
+import edu.hei.school.restaurant.model.CursorPage;
 import edu.hei.school.restaurant.model.Ingredient;
 import edu.hei.school.restaurant.model.Price;
 import edu.hei.school.restaurant.model.StockMovement;
@@ -25,16 +27,32 @@ import static org.springframework.http.HttpStatus.NOT_FOUND;
 public class IngredientRestController {
     private final IngredientService ingredientService;
     private final IngredientRestMapper ingredientRestMapper;
+    private final CursorMapper cursorMapper;
 
     @GetMapping("/ingredients")
     public ResponseEntity<Object> getIngredients(@RequestParam(name = "priceMinFilter", required = false) Double priceMinFilter,
-                                                 @RequestParam(name = "priceMaxFilter", required = false) Double priceMaxFilter) {
+                                                 @RequestParam(name = "priceMaxFilter", required = false) Double priceMaxFilter,
+                                                 @RequestParam(name = "page", defaultValue = "1") int page,
+                                                 @RequestParam(name = "cursor", required = false) String cursor,
+                                                 @RequestParam(name = "size", defaultValue = "500") int size) {
         try {
-            List<Ingredient> ingredientsByPrices = ingredientService.getIngredientsByPrices(priceMinFilter, priceMaxFilter);
-            List<IngredientRest> ingredientRests = ingredientsByPrices.stream()
+            // Sans "cursor", pagination LIMIT/OFFSET par "page" (1-based) ; avec "cursor" (vide pour
+            // la première page), pagination keyset et curseur suivant dans l'en-tête X-Next-Cursor
+            if (cursor == null) {
+                return ResponseEntity.ok(ingredientService.getIngredientsByPrices(priceMinFilter, priceMaxFilter, page, size).stream()
+                        .map(ingredient -> ingredientRestMapper.toRest(ingredient))
+                        .toList());
+            }
+            CursorPage<Ingredient> ingredientsByPrices = ingredientService.getIngredientsByPricesAfter(
+                    priceMinFilter, priceMaxFilter, cursorMapper.toAfterId(cursor), size);
+            List<IngredientRest> ingredientRests = ingredientsByPrices.getItems().stream()
                     .map(ingredient -> ingredientRestMapper.toRest(ingredient))
                     .toList();
-            return ResponseEntity.ok().body(ingredientRests);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (ingredientsByPrices.getNextAfterId() != null) {
+                response.header(CursorMapper.NEXT_CURSOR_HEADER, cursorMapper.toCursor(ingredientsByPrices.getNextAfterId()));
+            }
+            return response.body(ingredientRests);
         } catch (ClientException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         } catch (NotFoundException e) {
@@ -144,10 +162,7 @@ public ResponseEntity<Object> updateIngredientStockMovements(
     @PathVariable Long ingredientId, 
     @RequestBody List<CreateStockMovement> stockMovements) {
     
-    // Récupérer l'ingrédient par son ID
-    Ingredient ingredient = ingredientService.getById(ingredientId);
-    
-    // Créer la liste des mouvements de stock en associant l'ingrédient
+    // Créer la liste des mouvements de stock (l'ingrédient est associé par le service)
     List<StockMovement> movements = stockMovements.stream()
             .map(stockMovement -> {
                 StockMovement movement = new StockMovement();
@@ -155,7 +170,6 @@ public ResponseEntity<Object> updateIngredientStockMovements(
                 movement.setUnit(stockMovement.getUnit());
                 movement.setMovementType(stockMovement.getMovementType());
                 movement.setCreationDatetime(stockMovement.getCreationDateTime()); // ou utiliser stockMovement.getCreationDateTime() si nécessaire
-                movement.setIngredient(ingredient); // Associer l'ingrédient
                 return movement;
             })
             .toList();
@@ -0,0 +1,128 @@
+package edu.hei.school.restaurant.endpoint;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.hei.school.restaurant.endpoint.rest.OrderExportRest;
+import edu.hei.school.restaurant.model.OrderExportLine;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Écrit les lignes de {@code GET /orders/export} dans la réponse au fil de leur lecture.
+ * NDJSON : un objet par commande, ses plats regroupés (les lignes arrivent triées par commande,
+ * seule la commande en cours est gardée en mémoire). CSV : une ligne par plat commandé.
+ */
+class OrderExportWriter implements Consumer<OrderExportLine> {
+    static final String CSV_HEADER = "order_id,reference,creation_datetime,order_status,"
+            + "order_dish_id,dish_id,dish_name,unit_price,quantity,amount,dish_status";
+
+    private final Writer out;
+    private final ObjectMapper objectMapper; // null en CSV
+    private OrderExportRest currentOrder;
+
+    private OrderExportWriter(OutputStream outputStream, ObjectMapper objectMapper) {
+        this.out = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 1 << 16);
+        this.objectMapper = objectMapper;
+    }
+
+    static OrderExportWriter ndjson(OutputStream outputStream, ObjectMapper objectMapper) {
+        return new OrderExportWriter(outputStream, objectMapper);
+    }
+
+    static OrderExportWriter csv(OutputStream outputStream) throws IOException {
+        OrderExportWriter writer = new OrderExportWriter(outputStream, null);
+        writer.out.write(CSV_HEADER);
+        writer.out.write('\n');
+        return writer;
+    }
+
+    @Override
+    public void accept(OrderExportLine line) {
+        try {
+            if (objectMapper == null) {
+                writeCsv(line);
+                return;
+            }
+            if (currentOrder != null && !currentOrder.getId().equals(line.getOrderId())) {
+                writeCurrentOrder();
+            }
+            if (currentOrder == null) {
+                currentOrder = OrderExportRest.builder()
+                        .id(line.getOrderId())
+                        .reference(line.getReference())
+                        .creationDateTime(line.getCreationDatetime())
+                        .status(line.getOrderStatus().name())
+                        .totalAmount(0.0)
+                        .dishes(new ArrayList<>())
+                        .build();
+            }
+            if (line.getDishOrderId() != null) {
+                double amount = line.getUnitPrice() * line.getQuantity();
+                currentOrder.getDishes().add(OrderExportRest.Dish.builder()
+                        .id(line.getDishOrderId())
+                        .dishId(line.getDishId())
+                        .name(line.getDishName())
+                        .unitPrice(line.getUnitPrice())
+                        .quantity(line.getQuantity())
+                        .amount(amount)
+                        .status(line.getDishStatus().name())
+                        .build());
+                currentOrder.setTotalAmount(currentOrder.getTotalAmount() + amount);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Dernière commande (NDJSON) puis vidage du tampon
+    void finish() throws IOException {
+        if (currentOrder != null) {
+            writeCurrentOrder();
+        }
+        out.flush();
+    }
+
+    private void writeCurrentOrder() throws IOException {
+        out.write(objectMapper.writeValueAsString(currentOrder));
+        out.write('\n');
+        currentOrder = null;
+    }
+
+    private void writeCsv(OrderExportLine line) throws IOException {
+        boolean hasDish = line.getDishOrderId() != null;
+        out.write(String.valueOf(line.getOrderId()));
+        out.write(',');
+        out.write(csvValue(line.getReference()));
+        out.write(',');
+        out.write(line.getCreationDatetime().toString());
+        out.write(',');
+        out.write(line.getOrderStatus().name());
+        out.write(',');
+        if (hasDish) {
+            out.write(line.getDishOrderId() + "," + line.getDishId() + "," + csvValue(line.getDishName()) + ","
+                    + line.getUnitPrice() + "," + line.getQuantity() + ","
+                    + line.getUnitPrice() * line.getQuantity() + "," + line.getDishStatus().name());
+        } else {
+            out.write(",,,,,,");
+        }
+        out.write('\n');
+    }
+
+    // RFC 4180 : guillemets si la valeur contient une virgule, un guillemet ou un retour à la ligne
+    private static String csvValue(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
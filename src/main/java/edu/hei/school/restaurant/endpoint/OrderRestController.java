@@ -3,11 +3,13 @@
 package edu.hei.school.restaurant.endpoint;
 
 import edu.hei.school.restaurant.dao.mapper.DishOrderMapper;
+import edu.hei.school.restaurant.endpoint.mapper.DishSoldRestMapper;
 import edu.hei.school.restaurant.endpoint.mapper.OrderRequestMapper;
 import edu.hei.school.restaurant.endpoint.mapper.OrderRestMapper;
 import edu.hei.school.restaurant.endpoint.rest.CreateOrderRequest;
 import edu.hei.school.restaurant.endpoint.rest.DishOrderRequest;
 import edu.hei.school.restaurant.endpoint.rest.DishSold;
+import edu.hei.school.restaurant.endpoint.rest.OrderBatchResultRest;
 import edu.hei.school.restaurant.endpoint.rest.OrderRest;
 import edu.hei.school.restaurant.endpoint.rest.UpdateDishOrderStatus;
 import edu.hei.school.restaurant.endpoint.rest.UpdateDishStatusRequest;
@@ -21,21 +23,25 @@ import edu.hei.school.restaurant.service.OrderService;
 import edu.hei.school.restaurant.service.exception.ClientException;
 import edu.hei.school.restaurant.service.exception.NotFoundException;
 import edu.hei.school.restaurant.service.exception.ServerException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -44,8 +50,24 @@ public class OrderRestController {
     private final OrderService orderService;
     private final OrderRestMapper orderRestMapper;
     private final OrderRequestMapper orderRequestMapper;
+    private final DishSoldRestMapper dishSoldRestMapper;
+    private final ObjectMapper objectMapper;
 
 
+    @GetMapping("/orders")
+    public ResponseEntity<Object> getOrders(@RequestParam List<String> references) {
+        try {
+            List<OrderRest> orderRests = orderService.getByReferences(references).stream()
+                    .map(orderRestMapper::toRest)
+                    .toList();
+            return ResponseEntity.ok().body(orderRests);
+        } catch (ClientException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ServerException e) {
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/orders/{reference}")
     public ResponseEntity<Object> getOrder(@PathVariable String reference) {
         try {
@@ -117,18 +139,34 @@ public ResponseEntity<?> createOrderWithDishes(@RequestBody CreateOrderRequest r
 }
 
 
+// Lot de commandes (plateformes de livraison) : chaque commande est créée ou rejetée
+// indépendamment, le résultat de chacune est rendu dans l'ordre de la demande
+@PostMapping("/orders/batch")
+public ResponseEntity<?> createOrdersInBatch(@RequestBody List<CreateOrderRequest> requests) {
+    try {
+        List<OrderBatchResultRest> results = orderService.createOrdersInBatch(requests).stream()
+                .map(orderRestMapper::toRest)
+                .toList();
+        return ResponseEntity.ok(results);
+    } catch (ClientException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    } catch (ServerException e) {
+        return ResponseEntity.internalServerError().body(e.getMessage());
+    }
+}
+
 @PutMapping("/orders/{reference}/dishes/{dishId}")
 public ResponseEntity<Object> updateDishStatus(
         @PathVariable String reference,
         @PathVariable Long dishId,
         @RequestBody UpdateDishStatusRequest request) {
     try {
-        orderService.updateDishStatus(reference, dishId, request.getNewStatus());
-        
         OrderRest orderRest = orderRestMapper.toRest(
-                orderService.getByReference(reference));
+                orderService.updateDishStatus(reference, dishId, request.getNewStatus()));
         
         return ResponseEntity.ok().body(orderRest);
+    } catch (ClientException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
     } catch (NotFoundException e) {
         return ResponseEntity.status(NOT_FOUND).body(e.getMessage());
     } catch (ServerException e) {
@@ -138,40 +176,67 @@ public ResponseEntity<Object> updateDishStatus(
 
 
 
+// Export comptable de toutes les commandes (NDJSON par défaut, ou format=csv), écrit dans la
+// réponse au fil de la lecture en base : la taille de l'export ne dépend pas du tas
+@GetMapping("/orders/export")
+public ResponseEntity<StreamingResponseBody> exportOrders(
+        @RequestParam(defaultValue = "ndjson") String format,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(required = false) OrderStatus status) {
+    boolean csv = "csv".equalsIgnoreCase(format);
+    // Contrôles avant le début de l'écriture : ensuite le statut de la réponse est envoyé
+    if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+        return exportError("format must be ndjson or csv");
+    }
+    if (from != null && to != null && from.isAfter(to)) {
+        return exportError("from must be before or equal to to");
+    }
+    StreamingResponseBody body = outputStream -> {
+        OrderExportWriter writer = csv
+                ? OrderExportWriter.csv(outputStream)
+                : OrderExportWriter.ndjson(outputStream, objectMapper);
+        orderService.exportOrders(from, to, status, writer);
+        writer.finish();
+    };
+    return ResponseEntity.ok()
+            .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders." + (csv ? "csv" : "ndjson") + "\"")
+            .body(body);
+}
+
+// Le type de retour doit rester StreamingResponseBody, y compris pour une erreur
+private static ResponseEntity<StreamingResponseBody> exportError(String message) {
+    return ResponseEntity.badRequest()
+            .contentType(MediaType.TEXT_PLAIN)
+            .body(outputStream -> outputStream.write(message.getBytes(StandardCharsets.UTF_8)));
+}
+
 @GetMapping("/sales")
-public ResponseEntity<List<DishSold>> getDishesSold() {
+public ResponseEntity<Object> getDishesSold(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(required = false) Integer top) {
     try {
-        List<Order> deliveredOrders = orderService.getOrdersByStatus(OrderStatus.SERVI);
-        List<DishSold> dishesSold = calculateDishesSold(deliveredOrders);
+        List<DishSold> dishesSold = orderService.getDishSales(from, to, top).stream()
+                .map(dishSoldRestMapper::toRest)
+                .toList();
         
         return ResponseEntity.ok(dishesSold);
+    } catch (ClientException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
     } catch (ServerException e) {
-        return ResponseEntity.internalServerError().build();
+        return ResponseEntity.internalServerError().body(e.getMessage());
     }
 }
 
-private List<DishSold> calculateDishesSold(List<Order> deliveredOrders) {
-    Map<Long, DishSold> dishSoldMap = new HashMap<>();
-    
-    for (Order order : deliveredOrders) {
-        for (DishOrder dishOrder : order.getDishOrders()) {
-            dishSoldMap.compute(dishOrder.getDish().getId(), (id, dishSold) -> {
-                if (dishSold == null) {
-                    return new DishSold(
-                        id,
-                        dishOrder.getDish().getName(),
-                        dishOrder.getQuantity()
-                    );
-                } else {
-                    dishSold.setQuantitySold(dishSold.getQuantitySold() + dishOrder.getQuantity());
-                    return dishSold;
-                }
-            });
-        }
+// Reconstruit l'agrégat des ventes (dish_sales_daily) à partir des commandes servies
+@PostMapping("/sales/rollup/backfill")
+public ResponseEntity<Object> backfillDishSales() {
+    try {
+        return ResponseEntity.ok(orderService.backfillDishSales());
+    } catch (ServerException e) {
+        return ResponseEntity.internalServerError().body(e.getMessage());
     }
-    
-    return new ArrayList<>(dishSoldMap.values());
 }
-} 
-
- 
\ No newline at end of file
+}
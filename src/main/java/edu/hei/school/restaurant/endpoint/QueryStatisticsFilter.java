@@ -0,0 +1,67 @@
+package edu.hei.school.restaurant.endpoint;
+
+import edu.hei.school.restaurant.dao.QueryStatistics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Suit les accès JDBC de chaque requête HTTP ({@link QueryStatistics}) : résumé en DEBUG,
+ * et avertissement quand un même ordre SQL est exécuté au moins
+ * {@code query.statistics.repeated-statement-threshold} fois (boucle N+1 probable).
+ * L'en-tête de débogage est posé par {@link QueryStatisticsHeaderAdvice}.
+ */
+@Slf4j
+@Component
+public class QueryStatisticsFilter extends OncePerRequestFilter {
+    private final boolean enabled;
+    private final int repeatedStatementThreshold;
+
+    public QueryStatisticsFilter(
+            @Value("${query.statistics.enabled:true}") boolean enabled,
+            @Value("${query.statistics.repeated-statement-threshold:5}") int repeatedStatementThreshold) {
+        this.enabled = enabled;
+        this.repeatedStatementThreshold = repeatedStatementThreshold;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryStatistics statistics = QueryStatistics.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryStatistics.stop();
+            report(request, response, statistics);
+        }
+    }
+
+    private void report(HttpServletRequest request, HttpServletResponse response, QueryStatistics statistics) {
+        String call = request.getMethod() + " " + request.getRequestURI();
+        if (log.isDebugEnabled()) {
+            log.debug("{} -> {}: {}", call, response.getStatus(), statistics.summary(repeatedStatementThreshold));
+        }
+        Map<String, Integer> repeated = statistics.repeatedStatements(repeatedStatementThreshold);
+        repeated.forEach((sql, executions) ->
+                log.warn("Possible N+1 on {}: statement executed {} times ({} statements, {} connections in total): {}",
+                        call, executions, statistics.getStatements(), statistics.getConnections(),
+                        sql.replaceAll("\\s+", " ").trim()));
+    }
+
+    public int getRepeatedStatementThreshold() {
+        return repeatedStatementThreshold;
+    }
+}
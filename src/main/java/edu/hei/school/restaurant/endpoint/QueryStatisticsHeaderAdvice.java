@@ -0,0 +1,45 @@
+package edu.hei.school.restaurant.endpoint;
+
+import edu.hei.school.restaurant.dao.QueryStatistics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * En-tête de débogage {@code X-Query-Statistics} (ex. {@code statements=12;connections=3;db-time-ms=4.20;repeated=1}),
+ * posé juste avant l'écriture du corps, quand le contrôleur a terminé ses accès en base.
+ * Désactivé par défaut : {@code query.statistics.header.enabled=true} pour l'activer.
+ */
+@ControllerAdvice
+@RequiredArgsConstructor
+public class QueryStatisticsHeaderAdvice implements ResponseBodyAdvice<Object> {
+    public static final String QUERY_STATISTICS_HEADER = "X-Query-Statistics";
+
+    private final QueryStatisticsFilter queryStatisticsFilter;
+
+    @Value("${query.statistics.header.enabled:false}")
+    private boolean headerEnabled;
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return headerEnabled;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        QueryStatistics statistics = QueryStatistics.current();
+        if (statistics != null) {
+            response.getHeaders().set(QUERY_STATISTICS_HEADER,
+                    statistics.summary(queryStatisticsFilter.getRepeatedStatementThreshold()));
+        }
+        return body;
+    }
+}
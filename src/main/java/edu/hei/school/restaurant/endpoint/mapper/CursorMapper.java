@@ -0,0 +1,38 @@
+package edu.hei.school.restaurant.endpoint.mapper;
+
+import edu.hei.school.restaurant.service.exception.ClientException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Curseur opaque des endpoints paginés : encode l'id de la dernière ligne lue.
+// Le client ne fait que renvoyer la valeur reçue dans l'en-tête X-Next-Cursor.
+@Component
+public class CursorMapper {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String PREFIX = "id:";
+
+    public String toCursor(Long afterId) {
+        if (afterId == null) {
+            return null;
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + afterId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public Long toAfterId(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!decoded.startsWith(PREFIX)) {
+                throw new ClientException("Invalid cursor " + cursor);
+            }
+            return Long.parseLong(decoded.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ClientException("Invalid cursor " + cursor);
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package edu.hei.school.restaurant.endpoint.mapper;
 
 import edu.hei.school.restaurant.endpoint.rest.CreateOrUpdateDish;
+import edu.hei.school.restaurant.endpoint.rest.DishAvailabilityRest;
 import edu.hei.school.restaurant.endpoint.rest.DishIngredientRest;
 import edu.hei.school.restaurant.endpoint.rest.DishRest;
 import edu.hei.school.restaurant.model.Dish;
+import edu.hei.school.restaurant.model.DishAvailability;
 import edu.hei.school.restaurant.model.DishIngredient;
 
 import org.springframework.stereotype.Component;
@@ -21,6 +23,11 @@ public class DishRestMapper {
     }
 
     public DishRest toRest(Dish dish) {
+        return toRest(dish, dish.getAvailableQuantity().intValue()); // Convertir en Integer
+    }
+
+    // availableQuantity déjà calculée en base (DishService.getAvailableQuantities)
+    public DishRest toRest(Dish dish, Integer availableQuantity) {
         List<DishIngredientRest> ingredientRests = dish.getDishIngredients().stream()
                 .map(dishIngredientRestMapper::toRest) // Utiliser le mapper pour les ingrédients
                 .collect(Collectors.toList());
@@ -28,12 +35,20 @@ public class DishRestMapper {
         return new DishRest(
                 dish.getId(),
                 dish.getName(),
-                dish.getAvailableQuantity().intValue(), // Convertir en Integer
+                availableQuantity,
                 dish.getPrice(),
                 ingredientRests
         );
     }
 
+    public DishAvailabilityRest toRest(DishAvailability dishAvailability) {
+        return new DishAvailabilityRest(
+                dishAvailability.getDishId(),
+                dishAvailability.getDishName(),
+                dishAvailability.getAvailableQuantity()
+        );
+    }
+
     public Dish toModel(CreateOrUpdateDish newDish) {
         Dish dish = new Dish();
         dish.setId(newDish.getId());
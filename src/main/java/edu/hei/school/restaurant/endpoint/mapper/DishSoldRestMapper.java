@@ -0,0 +1,16 @@
+package edu.hei.school.restaurant.endpoint.mapper;
+
+import edu.hei.school.restaurant.endpoint.rest.DishSold;
+import edu.hei.school.restaurant.model.DishSales;
+import org.springframework.stereotype.Component;
+
+@Component
+public class DishSoldRestMapper {
+    public DishSold toRest(DishSales dishSales) {
+        return new DishSold(
+                dishSales.getDishId(),
+                dishSales.getDishName(),
+                dishSales.getQuantitySold(),
+                dishSales.getTotalAmount());
+    }
+}
@@ -0,0 +1,28 @@
+package edu.hei.school.restaurant.endpoint.mapper;
+
+import edu.hei.school.restaurant.endpoint.rest.ImportProgressRest;
+import edu.hei.school.restaurant.model.ImportProgress;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ImportProgressRestMapper {
+
+    public ImportProgressRest toRest(ImportProgress progress) {
+        return ImportProgressRest.builder()
+                .id(progress.getId())
+                .kind(progress.getKind())
+                .format(progress.getFormat().name())
+                .status(progress.getStatus().name())
+                .startedAt(progress.getStartedAt())
+                .finishedAt(progress.getFinishedAt())
+                .linesRead(progress.getLinesRead())
+                .linesRejected(progress.getLinesRejected())
+                .rowsInserted(progress.getRowsInserted())
+                .rowsUpdated(progress.getRowsUpdated())
+                .failure(progress.getFailure())
+                .errors(progress.getErrors().stream()
+                        .map(error -> new ImportProgressRest.ImportErrorRest(error.getLine(), error.getMessage()))
+                        .toList())
+                .build();
+    }
+}
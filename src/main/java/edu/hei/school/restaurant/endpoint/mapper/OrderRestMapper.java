@@ -1,5 +1,6 @@
 package edu.hei.school.restaurant.endpoint.mapper;
 
+import edu.hei.school.restaurant.endpoint.rest.OrderBatchResultRest;
 import edu.hei.school.restaurant.endpoint.rest.OrderDishRest;
 import edu.hei.school.restaurant.endpoint.rest.OrderRest;
 import edu.hei.school.restaurant.model.Dish;
@@ -7,6 +8,7 @@ import edu.hei.school.restaurant.model.DishOrder;
 import edu.hei.school.restaurant.model.DishOrderStatus;
 import edu.hei.school.restaurant.model.DishOrderStatusHistory;
 import edu.hei.school.restaurant.model.Order;
+import edu.hei.school.restaurant.model.OrderBatchResult;
 import edu.hei.school.restaurant.model.OrderStatus;
 import edu.hei.school.restaurant.model.OrderStatusHistory;
 import lombok.RequiredArgsConstructor;
@@ -26,12 +28,29 @@ public class OrderRestMapper {
     public OrderRest toRest(Order order) {
         return OrderRest.builder()
                 .id(order.getId())
+                .reference(order.getReference())
                 .totalAmount(order.getTotalAmount())
                 .actualStatus(getCurrentOrderStatus(order).name()) // .name() convertit l'enum en String
                 .dishes(mapDishOrdersToRest(order.getDishOrders()))
                 .build();
     }
 
+    public OrderBatchResultRest toRest(OrderBatchResult result) {
+        if (!result.isCreated()) {
+            return OrderBatchResultRest.builder()
+                    .reference(result.getReference())
+                    .status("REJECTED")
+                    .error(result.getError())
+                    .build();
+        }
+        return OrderBatchResultRest.builder()
+                .reference(result.getReference())
+                .status("CREATED")
+                .id(result.getOrder().getId())
+                .totalAmount(result.getOrder().getTotalAmount())
+                .build();
+    }
+
     private OrderStatus getCurrentOrderStatus(Order order) {
         if (order.getStatusHistory() != null && !order.getStatusHistory().isEmpty()) {
             return order.getStatusHistory().get(order.getStatusHistory().size() - 1).getStatus();
@@ -0,0 +1,12 @@
+package edu.hei.school.restaurant.endpoint.rest;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor
+@Getter
+public class DishAvailabilityRest {
+    private Long dishId;
+    private String dishName;
+    private Integer availableQuantity;
+}
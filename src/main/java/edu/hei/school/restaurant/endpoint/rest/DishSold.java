@@ -12,7 +12,8 @@ public class DishSold {
     private Long dishIdentifier;
     private String dishName;
     private int quantitySold;
+    private Double totalAmount;
 
     // Constructors
 
-}
\ No newline at end of file
+}
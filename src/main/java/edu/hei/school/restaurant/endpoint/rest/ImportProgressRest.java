@@ -0,0 +1,36 @@
+package edu.hei.school.restaurant.endpoint.rest;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportProgressRest {
+    private Long id;
+    private String kind;
+    private String format;
+    private String status;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private Long linesRead;
+    private Long linesRejected;
+    private Long rowsInserted;
+    private Long rowsUpdated;
+    private String failure;
+    private List<ImportErrorRest> errors; // premières lignes rejetées
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ImportErrorRest {
+        private Long line;
+        private String message;
+    }
+}
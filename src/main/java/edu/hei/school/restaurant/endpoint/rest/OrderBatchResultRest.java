@@ -0,0 +1,18 @@
+package edu.hei.school.restaurant.endpoint.rest;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderBatchResultRest {
+    private String reference;
+    private String status; // CREATED ou REJECTED
+    private Long id;
+    private Double totalAmount;
+    private String error;
+}
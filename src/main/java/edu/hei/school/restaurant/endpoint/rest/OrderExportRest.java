@@ -0,0 +1,37 @@
+package edu.hei.school.restaurant.endpoint.rest;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Une commande de l'export NDJSON, avec ses plats
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderExportRest {
+    private Long id;
+    private String reference;
+    private LocalDateTime creationDateTime;
+    private String status;
+    private Double totalAmount;
+    private List<Dish> dishes;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Dish {
+        private Long id;
+        private Long dishId;
+        private String name;
+        private Double unitPrice;
+        private Integer quantity;
+        private Double amount;
+        private String status;
+    }
+}
@@ -15,6 +15,7 @@ import java.util.List;
 @Data
 public class OrderRest {
     private Long id;
+    private String reference;
     private Double totalAmount;
     private String actualStatus;
     private List<OrderDishRest> dishes;
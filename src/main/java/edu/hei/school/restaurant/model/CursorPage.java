@@ -0,0 +1,15 @@
+package edu.hei.school.restaurant.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+// Page obtenue par pagination keyset : nextAfterId est l'id à passer pour la page suivante,
+// null quand il n'y a plus rien à lire.
+@Data
+@AllArgsConstructor
+public class CursorPage<E> {
+    private List<E> items;
+    private Long nextAfterId;
+}
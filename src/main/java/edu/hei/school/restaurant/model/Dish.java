@@ -46,7 +46,7 @@ public class Dish {
     public Double getTotalIngredientsCostAt(LocalDate dateValue) {
         double cost = 0.0;
         for (DishIngredient dishIngredient : dishIngredients) {
-            cost += dishIngredient.getIngredient().getPriceAt(dateValue);
+            cost += dishIngredient.getIngredient().getPriceAt(dateValue) * dishIngredient.getRequiredQuantity();
         }
         return cost;
     }
@@ -0,0 +1,16 @@
+package edu.hei.school.restaurant.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DishAvailability {
+    private Long dishId;
+    private String dishName;
+    private Integer availableQuantity;
+}
@@ -50,13 +50,7 @@ public class DishOrder {
     private boolean canTransitionTo(DishOrderStatus newStatus) {
         if (this.status == null) return newStatus == DishOrderStatus.CREE;
         
-        return switch (this.status) {
-            case CREE -> newStatus == DishOrderStatus.CONFIRME;
-            case CONFIRME -> newStatus == DishOrderStatus.EN_PREPARATION;
-            case EN_PREPARATION -> newStatus == DishOrderStatus.TERMINE;
-            case TERMINE -> newStatus == DishOrderStatus.SERVI;
-            case SERVI -> false;
-        };
+        return this.status.canTransitionTo(newStatus);
     }
 
     public DishOrderStatus getActualStatus() {
@@ -5,5 +5,15 @@ public enum DishOrderStatus {
     CONFIRME,
     EN_PREPARATION,
     TERMINE,
-    SERVI
-} 
\ No newline at end of file
+    SERVI;
+
+    public boolean canTransitionTo(DishOrderStatus newStatus) {
+        return switch (this) {
+            case CREE -> newStatus == CONFIRME;
+            case CONFIRME -> newStatus == EN_PREPARATION;
+            case EN_PREPARATION -> newStatus == TERMINE;
+            case TERMINE -> newStatus == SERVI;
+            case SERVI -> false;
+        };
+    }
+}
@@ -13,6 +13,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 public class DishOrderWithTimestamps {
+    private Long dishOrderId;
     private Long dishId;
     private String dishName;
     private String orderReference;
@@ -0,0 +1,17 @@
+package edu.hei.school.restaurant.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DishSales {
+    private Long dishId;
+    private String dishName;
+    private Integer quantitySold;
+    private Double totalAmount;
+}
@@ -0,0 +1,12 @@
+package edu.hei.school.restaurant.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Ligne rejetée d'un import (numéro de ligne du fichier, en-tête CSV compris)
+@Data
+@AllArgsConstructor
+public class ImportError {
+    private long line;
+    private String message;
+}
@@ -0,0 +1,6 @@
+package edu.hei.school.restaurant.model;
+
+public enum ImportFormat {
+    NDJSON, // un objet JSON par ligne (application/x-ndjson)
+    CSV     // ligne d'en-tête puis valeurs séparées par des virgules, sans guillemets (text/csv)
+}
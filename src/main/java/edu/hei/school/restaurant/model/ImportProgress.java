@@ -0,0 +1,127 @@
+package edu.hei.school.restaurant.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Avancement et rapport d'un import en flux : mis à jour par le thread qui lit le fichier,
+ * consultable pendant l'import (GET /imports). Seules les {@link #MAX_REPORTED_ERRORS}
+ * premières lignes rejetées sont détaillées, les autres sont seulement comptées.
+ */
+public class ImportProgress {
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    private final long id;
+    private final String kind;
+    private final ImportFormat format;
+    private final Instant startedAt = Instant.now();
+    private volatile ImportStatus status = ImportStatus.PARSING;
+    private volatile Instant finishedAt;
+    private volatile String failure;
+    private final AtomicLong linesRead = new AtomicLong();
+    private final AtomicLong linesRejected = new AtomicLong();
+    private final AtomicLong rowsInserted = new AtomicLong();
+    private final AtomicLong rowsUpdated = new AtomicLong();
+    private final List<ImportError> errors = new ArrayList<>();
+
+    public ImportProgress(long id, String kind, ImportFormat format) {
+        this.id = id;
+        this.kind = kind;
+        this.format = format;
+    }
+
+    public void lineRead() {
+        linesRead.incrementAndGet();
+    }
+
+    public void reject(long line, String message) {
+        linesRejected.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportError(line, message));
+            }
+        }
+    }
+
+    // Lignes rejetées en bloc (ex. ingrédients inconnus) dont seul un échantillon est détaillé
+    public void rejectMore(long count) {
+        linesRejected.addAndGet(count);
+    }
+
+    public void merging() {
+        status = ImportStatus.MERGING;
+    }
+
+    public void completed(long inserted, long updated) {
+        rowsInserted.set(inserted);
+        rowsUpdated.set(updated);
+        finishedAt = Instant.now();
+        status = ImportStatus.COMPLETED;
+    }
+
+    public void failed(String message) {
+        failure = message;
+        finishedAt = Instant.now();
+        status = ImportStatus.FAILED;
+    }
+
+    public boolean isFinished() {
+        return finishedAt != null;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getKind() {
+        return kind;
+    }
+
+    public ImportFormat getFormat() {
+        return format;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public ImportStatus getStatus() {
+        return status;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    public long getLinesRead() {
+        return linesRead.get();
+    }
+
+    public long getLinesRejected() {
+        return linesRejected.get();
+    }
+
+    public long getRowsInserted() {
+        return rowsInserted.get();
+    }
+
+    public long getRowsUpdated() {
+        return rowsUpdated.get();
+    }
+
+    // Copie triée par numéro de ligne
+    public List<ImportError> getErrors() {
+        synchronized (errors) {
+            List<ImportError> copy = new ArrayList<>(errors);
+            copy.sort(Comparator.comparingLong(ImportError::getLine));
+            return copy;
+        }
+    }
+}
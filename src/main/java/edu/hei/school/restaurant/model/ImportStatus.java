@@ -0,0 +1,8 @@
+package edu.hei.school.restaurant.model;
+
+public enum ImportStatus {
+    PARSING,   // lecture du fichier et chargement (COPY) dans la table de transit
+    MERGING,   // contrôle des ingrédients et fusion dans les tables définitives
+    COMPLETED,
+    FAILED
+}
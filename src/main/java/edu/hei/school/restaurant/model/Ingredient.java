@@ -1,35 +1,73 @@
 package edu.hei.school.restaurant.model;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
 
 import static edu.hei.school.restaurant.model.StockMovementType.IN;
 import static edu.hei.school.restaurant.model.StockMovementType.OUT;
 
-@AllArgsConstructor
 @NoArgsConstructor
-@Builder
 @Data
 public class Ingredient {
     private Long id;
     private String name;
     private List<Price> prices;
+    // Mouvements triés par date de création croissante
     private List<StockMovement> stockMovements;
+    // Checkpoints de solde triés par date croissante (peut être null ou vide ; le dernier seulement
+    // quand l'ingrédient est lu depuis la base)
+    private List<StockBalanceCheckpoint> stockBalanceCheckpoints;
+    // Non null si seuls les mouvements postérieurs à cette date (celle du checkpoint chargé) sont
+    // en mémoire : le stock n'est alors calculable qu'à partir de ce checkpoint
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private Instant stockMovementsLoadedAfter;
+    // Index des prix construit au premier besoin, invalidé quand les prix changent
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private transient PriceTimeline priceTimeline;
+
+    // Champs persistants seulement : l'index des prix n'est ni passé au constructeur ni au builder
+    @Builder
+    public Ingredient(Long id, String name, List<Price> prices, List<StockMovement> stockMovements,
+                      List<StockBalanceCheckpoint> stockBalanceCheckpoints) {
+        this.id = id;
+        this.name = name;
+        this.prices = prices;
+        this.stockMovements = stockMovements;
+        this.stockBalanceCheckpoints = stockBalanceCheckpoints;
+    }
+
+    public void setPrices(List<Price> prices) {
+        this.prices = prices;
+        this.priceTimeline = null;
+    }
 
     public List<StockMovement> addStockMovements(List<StockMovement> stockMovements) {
         stockMovements.forEach(stockMovement -> stockMovement.setIngredient(this));
+        invalidateCheckpointsFrom(stockMovements);
         if (getStockMovements() == null || getStockMovements().isEmpty()){
-            return stockMovements;
+            // Premiers mouvements : copie modifiable, l'appelant peut passer une liste immuable
+            setStockMovements(new ArrayList<>(stockMovements));
+        } else {
+            getStockMovements().addAll(stockMovements);
         }
-        getStockMovements().addAll(stockMovements);
+        // Un mouvement antidaté doit rester à sa place chronologique
+        getStockMovements().sort(Comparator.comparing(StockMovement::getCreationDatetime));
         return getStockMovements();
     }
 
@@ -39,22 +77,100 @@ public class Ingredient {
         }
         prices.forEach(price -> price.setIngredient(this));
         getPrices().addAll(prices);
+        priceTimeline = null;
         return getPrices();
     }
 
     public Double getActualPrice() {
-        return findActualPrice().orElse(new Price(0.0)).getAmount();
+        return getPriceTimeline().currentPrice();
     }
 
     public Double getAvailableQuantity() {
         return getAvailableQuantityAt(Instant.now());
     }
 
+    // Prix en vigueur à la date donnée (dernier prix dont la date est <= dateValue)
     public Double getPriceAt(LocalDate dateValue) {
-        return findPriceAt(dateValue).orElse(new Price(0.0)).getAmount();
+        return getPriceTimeline().priceAt(dateValue);
     }
 
+    // Dernier checkpoint <= datetime (recherche dichotomique) puis mouvements postérieurs
+    // à ce checkpoint uniquement. Sans checkpoint, tout l'historique est parcouru.
     public Double getAvailableQuantityAt(Instant datetime) {
+        StockBalanceCheckpoint checkpoint = findCheckpointAt(datetime);
+        if (checkpoint == null) {
+            if (stockMovementsLoadedAfter != null) {
+                // Historique partiel : la somme des mouvements chargés serait fausse
+                throw new IllegalStateException("Stock movements of ingredient " + id + " are only loaded after "
+                        + stockMovementsLoadedAfter + ", available quantity at " + datetime + " is unknown");
+            }
+            return sumStockMovementsUntil(datetime);
+        }
+
+        double quantity = checkpoint.getBalance();
+        for (int i = firstStockMovementAfter(checkpoint.getCheckpointDatetime()); i < stockMovements.size(); i++) {
+            StockMovement stockMovement = stockMovements.get(i);
+            if (stockMovement.getCreationDatetime().isAfter(datetime)) {
+                break;
+            }
+            if (IN.equals(stockMovement.getMovementType())) {
+                quantity += stockMovement.getQuantity();
+            } else if (OUT.equals(stockMovement.getMovementType())) {
+                quantity -= stockMovement.getQuantity();
+            }
+        }
+        return quantity;
+    }
+
+    private StockBalanceCheckpoint findCheckpointAt(Instant datetime) {
+        if (stockBalanceCheckpoints == null || stockBalanceCheckpoints.isEmpty()) {
+            return null;
+        }
+        int low = 0;
+        int high = stockBalanceCheckpoints.size() - 1;
+        StockBalanceCheckpoint floor = null;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            StockBalanceCheckpoint candidate = stockBalanceCheckpoints.get(middle);
+            if (candidate.getCheckpointDatetime().isAfter(datetime)) {
+                high = middle - 1;
+            } else {
+                floor = candidate;
+                low = middle + 1;
+            }
+        }
+        return floor;
+    }
+
+    // Index du premier mouvement strictement postérieur à datetime
+    private int firstStockMovementAfter(Instant datetime) {
+        int low = 0;
+        int high = stockMovements.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (stockMovements.get(middle).getCreationDatetime().isAfter(datetime)) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    // Les checkpoints postérieurs ou égaux au plus ancien mouvement ajouté ne sont plus valides
+    private void invalidateCheckpointsFrom(List<StockMovement> addedStockMovements) {
+        if (stockBalanceCheckpoints == null || stockBalanceCheckpoints.isEmpty()) {
+            return;
+        }
+        addedStockMovements.stream()
+                .map(StockMovement::getCreationDatetime)
+                .min(Comparator.naturalOrder())
+                .ifPresent(earliest -> stockBalanceCheckpoints = stockBalanceCheckpoints.stream()
+                        .filter(checkpoint -> checkpoint.getCheckpointDatetime().isBefore(earliest))
+                        .toList());
+    }
+
+    private Double sumStockMovementsUntil(Instant datetime) {
         List<StockMovement> stockMovementsBeforeToday = stockMovements.stream()
                 .filter(stockMovement ->
                         stockMovement.getCreationDatetime().isBefore(datetime)
@@ -71,14 +187,10 @@ public class Ingredient {
         return quantity;
     }
 
-    
-    private Optional<Price> findPriceAt(LocalDate dateValue) {
-        return prices.stream()
-                .filter(price -> price.getDateValue().equals(dateValue))
-                .findFirst();
-    }
-
-    private Optional<Price> findActualPrice() {
-        return prices.stream().max(Comparator.comparing(Price::getDateValue));
+    private PriceTimeline getPriceTimeline() {
+        if (priceTimeline == null) {
+            priceTimeline = PriceTimeline.of(prices);
+        }
+        return priceTimeline;
     }
 }
@@ -0,0 +1,21 @@
+package edu.hei.school.restaurant.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Issue d'une commande d'un lot : order renseigné si elle a été créée, error sinon
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderBatchResult {
+    private String reference;
+    private Order order;
+    private String error;
+
+    public boolean isCreated() {
+        return order != null;
+    }
+}
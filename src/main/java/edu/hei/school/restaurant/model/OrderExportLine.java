@@ -0,0 +1,26 @@
+package edu.hei.school.restaurant.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Ligne d'export : une commande et l'un de ses plats (champs du plat null pour une commande vide)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderExportLine {
+    private Long orderId;
+    private String reference;
+    private LocalDateTime creationDatetime;
+    private OrderStatus orderStatus;
+    private Long dishOrderId;
+    private Long dishId;
+    private String dishName;
+    private Double unitPrice;
+    private Integer quantity;
+    private DishOrderStatus dishStatus;
+}
@@ -0,0 +1,67 @@
+package edu.hei.school.restaurant.model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Historique des prix d'un ingrédient sous forme de tableaux triés par date.
+ * Le prix applicable à une date est le dernier prix dont la date est antérieure ou égale
+ * (recherche dichotomique) ; le prix actuel est le prix le plus récent.
+ * Pour plusieurs prix à la même date, le dernier de la liste l'emporte.
+ */
+public final class PriceTimeline {
+    private final long[] epochDays;
+    private final double[] amounts;
+
+    private PriceTimeline(long[] epochDays, double[] amounts) {
+        this.epochDays = epochDays;
+        this.amounts = amounts;
+    }
+
+    public static PriceTimeline of(List<Price> prices) {
+        List<Price> sortedPrices = prices == null ? List.of() : prices.stream()
+                .filter(price -> price.getDateValue() != null && price.getAmount() != null)
+                .sorted(Comparator.comparing(Price::getDateValue)) // tri stable
+                .toList();
+
+        long[] epochDays = new long[sortedPrices.size()];
+        double[] amounts = new double[sortedPrices.size()];
+        int size = 0;
+        for (Price price : sortedPrices) {
+            long epochDay = price.getDateValue().toEpochDay();
+            if (size > 0 && epochDays[size - 1] == epochDay) {
+                amounts[size - 1] = price.getAmount();
+            } else {
+                epochDays[size] = epochDay;
+                amounts[size] = price.getAmount();
+                size++;
+            }
+        }
+        return new PriceTimeline(Arrays.copyOf(epochDays, size), Arrays.copyOf(amounts, size));
+    }
+
+    // 0.0 si aucun prix n'est connu
+    public double currentPrice() {
+        return amounts.length == 0 ? 0.0 : amounts[amounts.length - 1];
+    }
+
+    // 0.0 si la date précède le premier prix connu
+    public double priceAt(LocalDate date) {
+        long epochDay = date.toEpochDay();
+        int low = 0;
+        int high = epochDays.length - 1;
+        int floor = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (epochDays[middle] <= epochDay) {
+                floor = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return floor < 0 ? 0.0 : amounts[floor];
+    }
+}
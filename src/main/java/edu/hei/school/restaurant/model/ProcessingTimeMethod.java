@@ -0,0 +1,9 @@
+package edu.hei.school.restaurant.model;
+
+public enum ProcessingTimeMethod {
+    AVERAGE,
+    MINIMUM,
+    MAXIMUM,
+    P50, // médiane
+    P95  // 95e centile
+}
@@ -0,0 +1,31 @@
+package edu.hei.school.restaurant.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Temps de traitement d'un plat (EN_PREPARATION -> TERMINE), en secondes, agrégés en base
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessingTimeStatistics {
+    private Long dishId;
+    private long count;
+    private Double average;
+    private Double minimum;
+    private Double maximum;
+    private Double median;
+    private Double percentile95;
+
+    public Double getSeconds(ProcessingTimeMethod method) {
+        return switch (method) {
+            case AVERAGE -> average;
+            case MINIMUM -> minimum;
+            case MAXIMUM -> maximum;
+            case P50 -> median;
+            case P95 -> percentile95;
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package edu.hei.school.restaurant.model;
+
+public enum ProcessingTimeUnit {
+    SECONDS(1),
+    MINUTES(60),
+    HOURS(3600);
+
+    private final int seconds;
+
+    ProcessingTimeUnit(int seconds) {
+        this.seconds = seconds;
+    }
+
+    public double fromSeconds(double value) {
+        return value / seconds;
+    }
+}
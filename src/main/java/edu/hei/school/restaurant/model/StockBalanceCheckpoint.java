@@ -0,0 +1,19 @@
+package edu.hei.school.restaurant.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Solde d'un ingrédient calculé sur tous les mouvements créés jusqu'à checkpointDatetime inclus
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class StockBalanceCheckpoint {
+    private Long id;
+    private Instant checkpointDatetime;
+    private Double balance;
+}
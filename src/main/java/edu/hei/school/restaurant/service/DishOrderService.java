@@ -2,7 +2,9 @@
 package edu.hei.school.restaurant.service;
 
 import edu.hei.school.restaurant.dao.operations.DishOrderCrudOperations;
+import edu.hei.school.restaurant.model.CursorPage;
 import edu.hei.school.restaurant.model.DishOrderWithTimestamps;
+import edu.hei.school.restaurant.service.exception.ClientException;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -16,4 +18,12 @@ public class DishOrderService {
     public List<DishOrderWithTimestamps> findAllWithTimestamps(int page, int size) {
         return dishOrderCrudOperations.findAllWithTimestamps(page, size);
     }
+
+    public CursorPage<DishOrderWithTimestamps> findAllWithTimestampsAfter(Long afterId, int size) {
+        if (size <= 0) {
+            throw new ClientException("Page size " + size + " must be greater than zero");
+        }
+        List<DishOrderWithTimestamps> dishOrders = dishOrderCrudOperations.findAllWithTimestampsAfter(afterId, size);
+        return new CursorPage<>(dishOrders, dishOrders.size() == size ? dishOrders.getLast().getDishOrderId() : null);
+    }
 }
\ No newline at end of file
@@ -1,19 +1,31 @@
 package edu.hei.school.restaurant.service;
 
 import edu.hei.school.restaurant.dao.operations.DishCrudOperations;
+import edu.hei.school.restaurant.dao.operations.DishOrderCrudOperations;
+import edu.hei.school.restaurant.model.CursorPage;
 import edu.hei.school.restaurant.model.Dish;
+import edu.hei.school.restaurant.model.DishAvailability;
 import edu.hei.school.restaurant.model.DishIngredient;
+import edu.hei.school.restaurant.model.ProcessingTimeMethod;
+import edu.hei.school.restaurant.model.ProcessingTimeStatistics;
+import edu.hei.school.restaurant.model.ProcessingTimeUnit;
 import edu.hei.school.restaurant.service.exception.ClientException;
 import edu.hei.school.restaurant.service.exception.NotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class DishService {
     private final DishCrudOperations dishCrudOperations;
+    private final DishOrderCrudOperations dishOrderCrudOperations;
 
     public List<Dish> getDishes(Integer page, Integer size) {
         if (page != null && page < 0) {
@@ -26,6 +38,28 @@ public class DishService {
         return dishCrudOperations.getAll(page != null ? page : 0, size != null ? size : 10);
     }
 
+    public CursorPage<Dish> getDishesAfter(Long afterId, Integer size) {
+        if (size != null && size <= 0) {
+            throw new ClientException("Page size " + size + " must be greater than zero");
+        }
+        int pageSize = size != null ? size : 10;
+        List<Dish> dishes = dishCrudOperations.getAllAfter(afterId, pageSize);
+        return new CursorPage<>(dishes, dishes.size() == pageSize ? dishes.getLast().getId() : null);
+    }
+
+    // Portions disponibles par id de plat, en une seule requête pour toute la liste
+    public Map<Long, Integer> getAvailableQuantities(List<Dish> dishes) {
+        if (dishes.isEmpty()) {
+            return Map.of();
+        }
+        return dishCrudOperations.findAvailabilities(dishes.stream().map(Dish::getId).toList()).stream()
+                .collect(Collectors.toMap(DishAvailability::getDishId, DishAvailability::getAvailableQuantity));
+    }
+
+    public List<DishAvailability> getAvailabilities() {
+        return dishCrudOperations.findAvailabilities(null);
+    }
+
     public Dish getById(Long id) {
         Dish dish = dishCrudOperations.findById(id);
         if (dish == null) {
@@ -34,6 +68,40 @@ public class DishService {
         return dish;
     }
 
+    // Temps de traitement d'un plat sur [startDate, endDate] (dates de mise en préparation incluses),
+    // calculé en base puis converti dans l'unité demandée
+    public double getProcessingTime(Long dishId, LocalDate startDate, LocalDate endDate, String unit, String method) {
+        if (startDate == null || endDate == null) {
+            throw new ClientException("startDate and endDate are mandatory");
+        }
+        if (startDate.isAfter(endDate)) {
+            throw new ClientException("startDate must be before or equal to endDate");
+        }
+        ProcessingTimeUnit timeUnit = parse(ProcessingTimeUnit.class, "unit", unit != null ? unit : "seconds");
+        ProcessingTimeMethod timeMethod = parse(ProcessingTimeMethod.class, "method", method != null ? method : "average");
+
+        ProcessingTimeStatistics statistics = dishOrderCrudOperations.findProcessingTimeStatistics(
+                dishId, startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
+        if (statistics == null) {
+            throw new NotFoundException("Dish with id " + dishId + " not found");
+        }
+        if (statistics.getCount() == 0) {
+            throw new NotFoundException("No finished preparation of dish " + dishId
+                    + " between " + startDate + " and " + endDate);
+        }
+        return timeUnit.fromSeconds(statistics.getSeconds(timeMethod));
+    }
+
+    private static <E extends Enum<E>> E parse(Class<E> type, String name, String value) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ClientException("Invalid " + name + " " + value + ", expected one of "
+                    + Arrays.stream(type.getEnumConstants())
+                            .map(constant -> constant.name().toLowerCase(Locale.ROOT)).toList());
+        }
+    }
+
     public List<Dish> saveAll(List<Dish> dishes) {
         return dishCrudOperations.saveAll(dishes);  
     }
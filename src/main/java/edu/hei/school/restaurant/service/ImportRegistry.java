@@ -0,0 +1,53 @@
+package edu.hei.school.restaurant.service;
+
+import edu.hei.school.restaurant.model.ImportFormat;
+import edu.hei.school.restaurant.model.ImportProgress;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Imports en cours et derniers imports terminés (en mémoire, par instance), pour suivre
+ * l'avancement d'un import pendant qu'il tourne et relire son rapport ensuite.
+ */
+@Component
+public class ImportRegistry {
+    private static final int MAX_FINISHED_IMPORTS = 20;
+
+    private final AtomicLong nextId = new AtomicLong();
+    private final Map<Long, ImportProgress> imports = new LinkedHashMap<>();
+
+    public synchronized ImportProgress start(String kind, ImportFormat format) {
+        ImportProgress progress = new ImportProgress(nextId.incrementAndGet(), kind, format);
+        imports.put(progress.getId(), progress);
+        evictOldestFinished();
+        return progress;
+    }
+
+    public synchronized Optional<ImportProgress> findById(long id) {
+        return Optional.ofNullable(imports.get(id));
+    }
+
+    // Du plus récent au plus ancien
+    public synchronized List<ImportProgress> findAll() {
+        List<ImportProgress> all = new ArrayList<>(imports.values());
+        return all.reversed();
+    }
+
+    private void evictOldestFinished() {
+        long finished = imports.values().stream().filter(ImportProgress::isFinished).count();
+        Iterator<ImportProgress> iterator = imports.values().iterator();
+        while (finished > MAX_FINISHED_IMPORTS && iterator.hasNext()) {
+            if (iterator.next().isFinished()) {
+                iterator.remove();
+                finished--;
+            }
+        }
+    }
+}
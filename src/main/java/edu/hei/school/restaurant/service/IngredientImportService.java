@@ -0,0 +1,233 @@
+package edu.hei.school.restaurant.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.hei.school.restaurant.dao.operations.IngredientImportCrudOperations;
+import edu.hei.school.restaurant.dao.operations.IngredientImportCrudOperations.RowSink;
+import edu.hei.school.restaurant.model.ImportFormat;
+import edu.hei.school.restaurant.model.ImportProgress;
+import edu.hei.school.restaurant.model.Ingredient;
+import edu.hei.school.restaurant.model.Price;
+import edu.hei.school.restaurant.model.StockMovement;
+import edu.hei.school.restaurant.model.StockMovementType;
+import edu.hei.school.restaurant.model.Unit;
+import edu.hei.school.restaurant.service.exception.ClientException;
+import edu.hei.school.restaurant.service.exception.ServerException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Import en flux de fichiers de mouvements de stock (inventaires) et de prix (tarifs fournisseurs)
+ * couvrant de nombreux ingrédients, en NDJSON ou en CSV. Le fichier est lu ligne à ligne et
+ * chaque ligne valide part aussitôt vers la base ({@link IngredientImportCrudOperations}) ;
+ * une ligne invalide est rejetée avec son motif dans le rapport sans interrompre l'import.
+ * <p>
+ * Champs : {@code ingredientId, quantity, unit, movementType[, creationDateTime]} pour les
+ * mouvements (date absente : date de l'import), {@code ingredientId, amount, dateValue} pour les prix.
+ */
+@Service
+@RequiredArgsConstructor
+public class IngredientImportService {
+    private static final List<String> STOCK_MOVEMENT_COLUMNS = List.of("ingredientId", "quantity", "unit", "movementType");
+    private static final List<String> PRICE_COLUMNS = List.of("ingredientId", "amount", "dateValue");
+
+    private final IngredientImportCrudOperations ingredientImportCrudOperations;
+    private final ImportRegistry importRegistry;
+    private final ObjectMapper objectMapper;
+
+    @FunctionalInterface
+    private interface RowParser<T> {
+        T parse(Function<String, String> fields);
+    }
+
+    @FunctionalInterface
+    private interface ImportAction {
+        void run() throws IOException;
+    }
+
+    public ImportProgress importStockMovements(InputStream input, ImportFormat format) {
+        ImportProgress progress = importRegistry.start("stockMovements", format);
+        Instant importedAt = Instant.now();
+        run(progress, () -> ingredientImportCrudOperations.importStockMovements(
+                sink -> readRows(input, format, STOCK_MOVEMENT_COLUMNS, progress,
+                        fields -> toStockMovement(fields, importedAt), sink),
+                progress));
+        return progress;
+    }
+
+    public ImportProgress importPrices(InputStream input, ImportFormat format) {
+        ImportProgress progress = importRegistry.start("prices", format);
+        run(progress, () -> ingredientImportCrudOperations.importPrices(
+                sink -> readRows(input, format, PRICE_COLUMNS, progress, this::toPrice, sink),
+                progress));
+        return progress;
+    }
+
+    private void run(ImportProgress progress, ImportAction action) {
+        try {
+            action.run();
+        } catch (ClientException | ServerException e) {
+            progress.failed(e.getMessage());
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            progress.failed(e.getMessage());
+            throw new ServerException(e);
+        }
+    }
+
+    private <T> void readRows(InputStream input, ImportFormat format, List<String> requiredColumns,
+                              ImportProgress progress, RowParser<T> parser, RowSink<T> sink) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Map<String, Integer> csvColumns = null;
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            if (format == ImportFormat.CSV && csvColumns == null) {
+                csvColumns = readCsvHeader(line, requiredColumns);
+                continue;
+            }
+            progress.lineRead();
+            T row;
+            try {
+                row = parser.parse(format == ImportFormat.CSV ? csvFields(line, csvColumns) : jsonFields(line));
+            } catch (IllegalArgumentException e) {
+                progress.reject(lineNumber, e.getMessage());
+                continue;
+            }
+            sink.accept(lineNumber, row);
+        }
+    }
+
+    private static Map<String, Integer> readCsvHeader(String header, List<String> requiredColumns) {
+        Map<String, Integer> columns = new HashMap<>();
+        String[] names = header.split(",", -1);
+        for (int i = 0; i < names.length; i++) {
+            columns.put(names[i].trim(), i);
+        }
+        for (String column : requiredColumns) {
+            if (!columns.containsKey(column)) {
+                throw new ClientException("CSV header must contain the columns " + requiredColumns);
+            }
+        }
+        return columns;
+    }
+
+    private static Function<String, String> csvFields(String line, Map<String, Integer> columns) {
+        String[] values = line.split(",", -1);
+        return name -> {
+            Integer index = columns.get(name);
+            if (index == null || index >= values.length || values[index].isBlank()) {
+                return null;
+            }
+            return values[index].trim();
+        };
+    }
+
+    private Function<String, String> jsonFields(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid JSON");
+        }
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("A JSON object is expected");
+        }
+        return name -> {
+            JsonNode value = node.get(name);
+            return value == null || value.isNull() ? null : value.asText();
+        };
+    }
+
+    private static StockMovement toStockMovement(Function<String, String> fields, Instant importedAt) {
+        double quantity = parseDouble(fields, "quantity");
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("quantity must be positive");
+        }
+        String creationDateTime = fields.apply("creationDateTime");
+        return StockMovement.builder()
+                .ingredient(Ingredient.builder().id(parseLong(fields, "ingredientId")).build())
+                .quantity(quantity)
+                .unit(parseEnum(Unit.class, fields, "unit"))
+                .movementType(parseEnum(StockMovementType.class, fields, "movementType"))
+                .creationDatetime(creationDateTime == null ? importedAt
+                        : parse(fields, "creationDateTime", Instant::parse, "an ISO instant (2025-04-10T08:00:00Z)"))
+                .build();
+    }
+
+    private Price toPrice(Function<String, String> fields) {
+        double amount = parseDouble(fields, "amount");
+        if (amount < 0) {
+            throw new IllegalArgumentException("amount must not be negative");
+        }
+        return Price.builder()
+                .ingredient(Ingredient.builder().id(parseLong(fields, "ingredientId")).build())
+                .amount(amount)
+                .dateValue(parse(fields, "dateValue", LocalDate::parse, "an ISO date (2025-04-10)"))
+                .build();
+    }
+
+    private static String required(Function<String, String> fields, String name) {
+        String value = fields.apply(name);
+        if (value == null) {
+            throw new IllegalArgumentException(name + " is required");
+        }
+        return value;
+    }
+
+    private static long parseLong(Function<String, String> fields, String name) {
+        try {
+            return Long.parseLong(required(fields, name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer");
+        }
+    }
+
+    private static double parseDouble(Function<String, String> fields, String name) {
+        double value;
+        try {
+            value = Double.parseDouble(required(fields, name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+        if (!Double.isFinite(value)) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+        return value;
+    }
+
+    private static <T> T parse(Function<String, String> fields, String name, Function<String, T> parser,
+                               String expected) {
+        try {
+            return parser.apply(required(fields, name));
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException(name + " must be " + expected);
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, Function<String, String> fields, String name) {
+        String value = required(fields, name);
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown " + name + " " + value);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package edu.hei.school.restaurant.service;
 import edu.hei.school.restaurant.dao.operations.IngredientCrudOperations;
 import edu.hei.school.restaurant.dao.operations.PriceCrudOperations;
 import edu.hei.school.restaurant.dao.operations.StockMovementCrudOperations;
+import edu.hei.school.restaurant.model.CursorPage;
 import edu.hei.school.restaurant.model.Ingredient;
 import edu.hei.school.restaurant.model.Price;
 import edu.hei.school.restaurant.model.StockMovement;
@@ -20,7 +21,22 @@ public class IngredientService {
     private final StockMovementCrudOperations stockMovementCrudOperations;
     
 
-    public List<Ingredient> getIngredientsByPrices(Double priceMinFilter, Double priceMaxFilter) {
+    public List<Ingredient> getIngredientsByPrices(Double priceMinFilter, Double priceMaxFilter, int page, int size) {
+        checkPriceFilters(priceMinFilter, priceMaxFilter, size);
+        if (page <= 0) {
+            throw new ClientException("Page number " + page + " must be greater than zero");
+        }
+        // Filtre sur le prix actuel et pagination faits par Postgres
+        return ingredientCrudOperations.findByActualPrice(priceMinFilter, priceMaxFilter, page, size);
+    }
+
+    public CursorPage<Ingredient> getIngredientsByPricesAfter(Double priceMinFilter, Double priceMaxFilter, Long afterId, int size) {
+        checkPriceFilters(priceMinFilter, priceMaxFilter, size);
+        List<Ingredient> ingredients = ingredientCrudOperations.findByActualPrice(priceMinFilter, priceMaxFilter, afterId, size);
+        return new CursorPage<>(ingredients, ingredients.size() == size ? ingredients.getLast().getId() : null);
+    }
+
+    private static void checkPriceFilters(Double priceMinFilter, Double priceMaxFilter, int size) {
         if (priceMinFilter != null && priceMinFilter < 0) {
             throw new ClientException("PriceMinFilter " + priceMinFilter + " is negative");
         }
@@ -32,24 +48,9 @@ public class IngredientService {
                 throw new ClientException("PriceMinFilter " + priceMinFilter + " is greater than PriceMaxFilter " + priceMaxFilter);
             }
         }
-        // TODO : paginate from restController OR filter from repository directly
-        List<Ingredient> ingredients = ingredientCrudOperations.getAll(1, 500);
-
-        return ingredients.stream()
-                .filter(ingredient -> {
-                    if (priceMinFilter == null && priceMaxFilter == null) {
-                        return true;
-                    }
-                    Double unitPrice = ingredient.getActualPrice();
-                    if (priceMinFilter != null && priceMaxFilter == null) {
-                        return unitPrice >= priceMinFilter;
-                    }
-                    if (priceMinFilter == null) {
-                        return unitPrice <= priceMaxFilter;
-                    }
-                    return unitPrice >= priceMinFilter && unitPrice <= priceMaxFilter;
-                })
-                .toList();
+        if (size <= 0) {
+            throw new ClientException("Page size " + size + " must be greater than zero");
+        }
     }
 
     
@@ -84,26 +85,18 @@ public class IngredientService {
 
 
 
+    // Une seule lecture de l'ingrédient (prix, mouvements, dernier checkpoint) : les mouvements
+    // enregistrés, rendus par saveAll avec leurs ids et dates, complètent l'historique chargé.
     public Ingredient addStockMovements(Long ingredientId, List<StockMovement> stockMovementsToAdd) {
-        // Récupérer l'ingrédient par son ID
         Ingredient ingredient = ingredientCrudOperations.findById(ingredientId);
-        
-        // Charger les mouvements de stock existants depuis la base de données
-        List<StockMovement> existingMovements = stockMovementCrudOperations.findByIdIngredient(ingredientId);
-        ingredient.setStockMovements(existingMovements);
-        
-        // Ajouter les nouveaux mouvements de stock
-        ingredient.addStockMovements(stockMovementsToAdd);
-        
-        // Sauvegarder les nouveaux mouvements de stock
-        stockMovementCrudOperations.saveAll(stockMovementsToAdd);
-        
-        // Sauvegarder l'ingrédient mis à jour
-        return ingredientCrudOperations.save(ingredient);
+        stockMovementsToAdd.forEach(stockMovement -> stockMovement.setIngredient(ingredient));
+
+        List<StockMovement> savedStockMovements = stockMovementCrudOperations.saveAll(stockMovementsToAdd);
+        ingredient.addStockMovements(savedStockMovements);
+        return ingredient;
     }
     
 
-
     public Ingredient update(Ingredient ingredient) {
         // Vérifie que l'ingrédient existe (utilise votre findById existant)
         Ingredient existing = ingredientCrudOperations.findById(ingredient.getId());
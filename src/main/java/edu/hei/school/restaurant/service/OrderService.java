@@ -1,8 +1,11 @@
 package edu.hei.school.restaurant.service;
 
+import edu.hei.school.restaurant.dao.MenuRegistry;
 import edu.hei.school.restaurant.dao.operations.DishCrudOperations;
 import edu.hei.school.restaurant.dao.operations.DishOrderCrudOperations;
+import edu.hei.school.restaurant.dao.operations.DishSalesCrudOperations;
 import edu.hei.school.restaurant.dao.operations.OrderCrudOperations;
+import edu.hei.school.restaurant.endpoint.rest.CreateOrderRequest;
 import edu.hei.school.restaurant.endpoint.rest.DishOrderRequest;
 import edu.hei.school.restaurant.endpoint.rest.OrderDishRequest;
 import edu.hei.school.restaurant.endpoint.rest.UpdateOrderDishesRequest;
@@ -15,17 +18,32 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class OrderService {
+    private static final int MAX_REFERENCES_PER_REQUEST = 200;
+    private static final int MAX_ORDERS_PER_BATCH = 1000;
+    // Taille de la colonne "order".reference (varchar(50))
+    private static final int MAX_REFERENCE_LENGTH = 50;
+
     private final OrderCrudOperations orderCrudOperations;
     private final DishCrudOperations dishCrudOperations;
+    private final MenuRegistry menuRegistry;
     private final DishOrderCrudOperations dishOrderCrudOperations;
+    private final DishSalesCrudOperations dishSalesCrudOperations;
 
     public Order getByReference(String reference) {
         Order order = orderCrudOperations.findByReference(reference);
@@ -60,11 +78,21 @@ public class OrderService {
         return order;
     }
 
+    public List<Order> getByReferences(List<String> references) {
+        if (references.size() > MAX_REFERENCES_PER_REQUEST) {
+            throw new ClientException("At most " + MAX_REFERENCES_PER_REQUEST + " references can be requested at once");
+        }
+        return orderCrudOperations.findAllByReferences(references);
+    }
+
     public Order updateDishes(String reference, UpdateOrderRequest request) {
         Order order = getByReference(reference);
         
+        Map<Long, Dish> dishes = resolveDishes(request.getDishes().stream()
+                .map(OrderDishRequest::getDishId)
+                .toList());
         List<DishOrder> dishOrders = request.getDishes().stream()
-                .map(dishRequest -> toDishOrder(order, dishRequest))
+                .map(dishRequest -> toDishOrder(order, dishRequest, dishes))
                 .toList();
         
         order.setDishOrders(dishOrders);
@@ -80,90 +108,34 @@ public class OrderService {
     }
 
 
+    // La commande retournée est celle lue sous verrou par la transaction : pas de relecture
     public Order updateDishStatus(String reference, Long dishId, DishOrderStatus newStatus) {
-        Order order = getByReference(reference);
-        
-        DishOrder dishOrder = order.getDishOrders().stream()
-                .filter(d -> d.getDish().getId().equals(dishId))
-                .findFirst()
-                .orElseThrow(() -> new NotFoundException("Dish not found in order: " + dishId));
-    
-        // Mettre à jour le statut et l'historique
-        dishOrderCrudOperations.updateStatus(dishOrder.getId(), newStatus);
-        dishOrder.updateStatus(newStatus);
-        
-        updateOrderStatusBasedOnDishes(order);
-    
-        List<Order> savedOrders = orderCrudOperations.saveAll(List.of(order));
-        return savedOrders.getFirst();
+        return orderCrudOperations.advanceDishStatus(reference, dishId, newStatus);
     }
-    
-    private void updateOrderStatusBasedOnDishes(Order order) {
-        List<DishOrder> dishOrders = order.getDishOrders();
-        
-        // 1. Si tous les plats sont CONFIRME, la commande passe en CONFIRME
-        boolean allConfirmed = dishOrders.stream()
-                .allMatch(d -> d.getStatus() == DishOrderStatus.CONFIRME);
-        if (allConfirmed && order.getActualStatus() != OrderStatus.CONFIRME) {
-            order.setStatus(OrderStatus.CONFIRME);
-            order.getStatusHistory().add(
-                OrderStatusHistory.builder()
-                    .order(order)
-                    .status(OrderStatus.CONFIRME)
-                    .statusDateTime(LocalDateTime.now())
-                    .build()
-            );
-            return;
-        }
-        
-        // 2. Si au moins un plat est EN_PREPARATION, la commande passe en EN_PREPARATION
-        boolean anyInProgress = dishOrders.stream()
-                .anyMatch(d -> d.getStatus() == DishOrderStatus.EN_PREPARATION);
-        if (anyInProgress && order.getActualStatus() != OrderStatus.EN_PREPARATION) {
-            order.setStatus(OrderStatus.EN_PREPARATION);
-            order.getStatusHistory().add(
-                OrderStatusHistory.builder()
-                    .order(order)
-                    .status(OrderStatus.EN_PREPARATION)
-                    .statusDateTime(LocalDateTime.now())
-                    .build()
-            );
-            return;
-        }
-        
-        // 3. Si tous les plats sont TERMINE, la commande passe en TERMINE
-        boolean allFinished = dishOrders.stream()
-                .allMatch(d -> d.getStatus() == DishOrderStatus.TERMINE);
-        if (allFinished && order.getActualStatus() != OrderStatus.TERMINE) {
-            order.setStatus(OrderStatus.TERMINE);
-            order.getStatusHistory().add(
-                OrderStatusHistory.builder()
-                    .order(order)
-                    .status(OrderStatus.TERMINE)
-                    .statusDateTime(LocalDateTime.now())
-                    .build()
-            );
-            return;
+
+
+    // Résolution groupée des plats depuis la carte en mémoire ; les plats absents du snapshot
+    // (ex. insérés hors de cette application) sont lus en une seule requête, quel que soit
+    // le nombre de lignes. Les ids inconnus sont absents de la Map retournée.
+    private Map<Long, Dish> resolveDishes(Collection<Long> dishIds) {
+        Map<Long, Dish> dishes = new HashMap<>();
+        List<Long> missingDishIds = new ArrayList<>();
+        for (Long dishId : new LinkedHashSet<>(dishIds)) {
+            if (dishId == null) {
+                continue;
+            }
+            menuRegistry.findById(dishId).ifPresentOrElse(
+                    dish -> dishes.put(dishId, dish),
+                    () -> missingDishIds.add(dishId));
         }
-        
-        // 4. Si tous les plats sont SERVI, la commande passe en SERVI
-        boolean allDelivered = dishOrders.stream()
-                .allMatch(d -> d.getStatus() == DishOrderStatus.SERVI);
-        if (allDelivered && order.getActualStatus() != OrderStatus.SERVI) {
-            order.setStatus(OrderStatus.SERVI);
-            order.getStatusHistory().add(
-                OrderStatusHistory.builder()
-                    .order(order)
-                    .status(OrderStatus.SERVI)
-                    .statusDateTime(LocalDateTime.now())
-                    .build()
-            );
+        if (!missingDishIds.isEmpty()) {
+            dishCrudOperations.findAllByIds(missingDishIds).forEach(dish -> dishes.put(dish.getId(), dish));
         }
+        return dishes;
     }
 
-
-    private DishOrder toDishOrder(Order order, OrderDishRequest dishRequest) {
-        Dish dish = dishCrudOperations.findById(dishRequest.getDishId());
+    private DishOrder toDishOrder(Order order, OrderDishRequest dishRequest, Map<Long, Dish> dishes) {
+        Dish dish = dishes.get(dishRequest.getDishId());
         if (dish == null) {
             throw new NotFoundException("Dish not found with id: " + dishRequest.getDishId());
         }
@@ -207,11 +179,15 @@ public class OrderService {
     }
 
     private void validateDishes(List<DishOrder> dishes) {
+        Map<Long, Dish> knownDishes = resolveDishes(dishes.stream()
+                .filter(dishOrder -> dishOrder.getDish() != null)
+                .map(dishOrder -> dishOrder.getDish().getId())
+                .toList());
         for (DishOrder dishOrder : dishes) {
             if (dishOrder.getQuantity() <= 0) {
                 throw new IllegalArgumentException("Quantity must be positive");
             }
-            if (dishOrder.getDish() == null || dishCrudOperations.findById(dishOrder.getDish().getId()) == null) {
+            if (dishOrder.getDish() == null || !knownDishes.containsKey(dishOrder.getDish().getId())) {
                 throw new NotFoundException("Dish not found");
             }
         }
@@ -327,9 +303,12 @@ public class OrderService {
                 .build();
     
         // Création des DishOrders
+        Map<Long, Dish> dishes = resolveDishes(dishOrderRequests.stream()
+                .map(DishOrderRequest::getDishId)
+                .toList());
         List<DishOrder> dishOrders = new ArrayList<>();
         for (DishOrderRequest request : dishOrderRequests) {
-            Dish dish = dishCrudOperations.findById(request.getDishId());
+            Dish dish = dishes.get(request.getDishId());
             if (dish == null) {
                 throw new ClientException("Dish with ID " + request.getDishId() + " not found");
             }
@@ -366,9 +345,132 @@ public class OrderService {
     
 
 
+    // Création d'un lot de commandes (intégrations des plateformes de livraison). Chaque commande
+    // est validée séparément : une commande invalide est rejetée avec son motif sans bloquer les
+    // autres. Les plats et les références existantes sont vérifiés en une requête chacun, puis
+    // les commandes valides sont insérées ensemble (OrderCrudOperations.insertAll).
+    // Résultats dans l'ordre de la demande.
+    public List<OrderBatchResult> createOrdersInBatch(List<CreateOrderRequest> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new ClientException("At least one order is required");
+        }
+        if (requests.size() > MAX_ORDERS_PER_BATCH) {
+            throw new ClientException("At most " + MAX_ORDERS_PER_BATCH + " orders can be created at once");
+        }
+
+        List<String> references = requests.stream()
+                .map(CreateOrderRequest::getReference)
+                .filter(reference -> reference != null && !reference.isBlank())
+                .toList();
+        Set<String> existingReferences = orderCrudOperations.findExistingReferences(references);
+        Map<Long, Dish> dishes = resolveDishes(requests.stream()
+                .filter(request -> request.getDishes() != null)
+                .flatMap(request -> request.getDishes().stream())
+                .map(CreateOrderRequest.DishQuantity::getDishId)
+                .toList());
+
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderBatchResult> results = new ArrayList<>();
+        List<Order> validOrders = new ArrayList<>();
+        Set<String> batchReferences = new HashSet<>();
+        for (CreateOrderRequest request : requests) {
+            OrderBatchResult result = OrderBatchResult.builder().reference(request.getReference()).build();
+            results.add(result);
+            try {
+                if (request.getReference() == null || request.getReference().isBlank()) {
+                    throw new ClientException("Order reference is required");
+                }
+                if (request.getReference().length() > MAX_REFERENCE_LENGTH) {
+                    throw new ClientException("Order reference must not exceed " + MAX_REFERENCE_LENGTH + " characters");
+                }
+                if (existingReferences.contains(request.getReference())) {
+                    throw new ClientException("Order reference already exists");
+                }
+                if (!batchReferences.add(request.getReference())) {
+                    throw new ClientException("Order reference is duplicated in the batch");
+                }
+                Order order = toNewOrder(request, dishes, now);
+                result.setOrder(order);
+                validOrders.add(order);
+            } catch (ClientException e) {
+                result.setError(e.getMessage());
+            }
+        }
+
+        // Une référence créée entre la vérification et l'insertion est écartée par la base
+        Set<String> insertedReferences = orderCrudOperations.insertAll(validOrders).stream()
+                .map(Order::getReference)
+                .collect(Collectors.toSet());
+        for (OrderBatchResult result : results) {
+            if (result.getOrder() != null && !insertedReferences.contains(result.getReference())) {
+                result.setOrder(null);
+                result.setError("Order reference already exists");
+            }
+        }
+        return results;
+    }
+
+    private Order toNewOrder(CreateOrderRequest request, Map<Long, Dish> dishes, LocalDateTime now) {
+        Order order = Order.builder()
+                .reference(request.getReference())
+                .creationDateTime(now)
+                .status(OrderStatus.CREE)
+                .statusHistory(List.of(OrderStatusHistory.builder()
+                        .status(OrderStatus.CREE)
+                        .statusDateTime(now)
+                        .build()))
+                .build();
+        List<DishOrder> dishOrders = new ArrayList<>();
+        if (request.getDishes() != null) {
+            for (CreateOrderRequest.DishQuantity dishQuantity : request.getDishes()) {
+                Dish dish = dishes.get(dishQuantity.getDishId());
+                if (dish == null) {
+                    throw new ClientException("Dish with ID " + dishQuantity.getDishId() + " not found");
+                }
+                if (dishQuantity.getQuantity() == null || dishQuantity.getQuantity() <= 0) {
+                    throw new ClientException("Quantity must be positive for dish " + dish.getId());
+                }
+                dishOrders.add(DishOrder.builder()
+                        .dish(dish)
+                        .order(order)
+                        .quantity(dishQuantity.getQuantity())
+                        .status(DishOrderStatus.CREE)
+                        .statusHistory(List.of(DishOrderStatusHistory.builder()
+                                .status(DishOrderStatus.CREE)
+                                .statusDateTime(now)
+                                .build()))
+                        .build());
+            }
+        }
+        order.setDishOrders(dishOrders);
+        return order;
+    }
+
     public List<Order> getOrdersByStatus(OrderStatus status) throws ServerException {
         return orderCrudOperations.findByStatus(status);
     }
+
+    public List<DishSales> getDishSales(LocalDate from, LocalDate to, Integer top) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new ClientException("from must be before or equal to to");
+        }
+        if (top != null && top <= 0) {
+            throw new ClientException("top must be greater than 0");
+        }
+        return dishSalesCrudOperations.findDishSales(from, to, top);
+    }
+
+    // Export comptable de toutes les commandes, ligne par ligne (voir OrderCrudOperations.exportAll)
+    public void exportOrders(LocalDate from, LocalDate to, OrderStatus status, Consumer<OrderExportLine> consumer) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new ClientException("from must be before or equal to to");
+        }
+        orderCrudOperations.exportAll(from, to, status, consumer);
+    }
+
+    public int backfillDishSales() {
+        return dishSalesCrudOperations.backfill();
+    }
     
 }
 
@@ -0,0 +1,20 @@
+package edu.hei.school.restaurant.service;
+
+import edu.hei.school.restaurant.dao.operations.StockBalanceCheckpointCrudOperations;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+
+@Service
+@RequiredArgsConstructor
+public class StockBalanceCheckpointService {
+    private final StockBalanceCheckpointCrudOperations checkpointCrudOperations;
+
+    // Un checkpoint par ingrédient, calculé à partir du précédent
+    @Scheduled(cron = "${stock.checkpoint.cron}")
+    public void createCheckpoints() {
+        checkpointCrudOperations.createCheckpoints(Instant.now());
+    }
+}
@@ -0,0 +1,12 @@
+-- Index utilisés par le chargement agrégé d'une commande (OrderCrudOperations.findAggregate)
+CREATE INDEX IF NOT EXISTS order_status_order_id_datetime_idx
+    ON order_status (order_id, status_datetime);
+
+CREATE INDEX IF NOT EXISTS order_dish_order_id_idx
+    ON order_dish (order_id);
+
+CREATE INDEX IF NOT EXISTS order_dish_status_order_dish_id_datetime_idx
+    ON order_dish_status (order_dish_id, status_datetime DESC);
+
+CREATE INDEX IF NOT EXISTS dish_order_status_history_dish_order_id_datetime_idx
+    ON dish_order_status_history (dish_order_id, status_date_time);
@@ -0,0 +1,32 @@
+-- Agrégat des ventes par plat et par jour, alimenté au passage d'une commande à SERVI
+-- (OrderCrudOperations.advanceDishStatus) et reconstruit par DishSalesCrudOperations.backfill.
+-- Amorcé ici avec les commandes déjà servies, pour que /sales soit juste dès la migration
+CREATE TABLE IF NOT EXISTS dish_sales_daily (
+    dish_id bigint NOT NULL,
+    sales_date date NOT NULL,
+    quantity_sold bigint NOT NULL DEFAULT 0,
+    total_amount numeric NOT NULL DEFAULT 0,
+    CONSTRAINT dish_sales_daily_pkey PRIMARY KEY (dish_id, sales_date),
+    CONSTRAINT dish_sales_daily_dish_fkey FOREIGN KEY (dish_id) REFERENCES dish(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS dish_sales_daily_sales_date_idx
+    ON dish_sales_daily (sales_date);
+
+-- Même calcul que DishSalesCrudOperations.backfill ; seulement si la table est vide,
+-- le script peut être rejoué sans compter deux fois les ventes
+INSERT INTO dish_sales_daily (dish_id, sales_date, quantity_sold, total_amount)
+SELECT od.dish_id, os.status_datetime::date, SUM(od.quantity), SUM(od.quantity * d.price)
+FROM "order" o
+JOIN LATERAL (
+    SELECT s.status, s.status_datetime
+    FROM "order_status" s
+    WHERE s.order_id = o.id
+    ORDER BY s.status_datetime DESC, s.id DESC
+    LIMIT 1
+) os ON true
+JOIN order_dish od ON od.order_id = o.id
+JOIN dish d ON d.id = od.dish_id
+WHERE os.status = 'SERVI'
+  AND NOT EXISTS (SELECT 1 FROM dish_sales_daily)
+GROUP BY od.dish_id, os.status_datetime::date;
@@ -0,0 +1,15 @@
+-- Solde de stock par ingrédient à un instant donné (mouvements créés jusqu'à
+-- checkpoint_datetime inclus). Le stock disponible à un instant t se calcule à partir
+-- du dernier checkpoint <= t et des seuls mouvements postérieurs.
+CREATE TABLE IF NOT EXISTS stock_balance_checkpoint (
+    id bigserial,
+    id_ingredient bigint NOT NULL,
+    checkpoint_datetime timestamp without time zone NOT NULL,
+    balance numeric NOT NULL,
+    CONSTRAINT stock_balance_checkpoint_pkey PRIMARY KEY (id),
+    CONSTRAINT stock_balance_checkpoint_ingredient_fkey FOREIGN KEY (id_ingredient) REFERENCES ingredient(id) ON DELETE CASCADE,
+    CONSTRAINT unique_stock_balance_checkpoint UNIQUE (id_ingredient, checkpoint_datetime)
+);
+
+CREATE INDEX IF NOT EXISTS stock_movement_ingredient_datetime_idx
+    ON stock_movement (id_ingredient, creation_datetime);
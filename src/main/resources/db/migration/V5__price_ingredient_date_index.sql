@@ -0,0 +1,3 @@
+-- Dernier prix par ingrédient (IngredientCrudOperations.findByActualPrice)
+CREATE INDEX IF NOT EXISTS price_ingredient_date_idx
+    ON price (id_ingredient, date_value DESC);
@@ -0,0 +1,3 @@
+-- Lignes de commande d'un plat (DishOrderCrudOperations.findProcessingTimeStatistics)
+CREATE INDEX IF NOT EXISTS order_dish_dish_id_idx
+    ON order_dish (dish_id);
@@ -0,0 +1,107 @@
+package edu.hei.school.restaurant.perf;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application démarrée dans un processus séparé ({@code java -jar} du bootJar) sur la base
+ * du test de charge. Les paramètres de connexion passent par les variables DATABASE_*,
+ * prioritaires sur le fichier .env.
+ */
+public class ApplicationProcess implements AutoCloseable {
+    private static final Duration STARTUP_TIMEOUT = Duration.ofSeconds(90);
+
+    private final Process process;
+    private final Path logFile;
+
+    private ApplicationProcess(Process process, Path logFile) {
+        this.process = process;
+        this.logFile = logFile;
+    }
+
+    public static ApplicationProcess start(LoadTestSettings settings, HttpClient httpClient)
+            throws IOException, InterruptedException {
+        Path workingDirectory = settings.outputDirectory().toAbsolutePath();
+        Files.createDirectories(workingDirectory);
+        // Dotenv.load() exige un fichier .env dans le répertoire courant
+        Path dotenv = workingDirectory.resolve(".env");
+        if (Files.notExists(dotenv)) {
+            Files.writeString(dotenv, "");
+        }
+        Path logFile = workingDirectory.resolve("application.log");
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (!settings.applicationJvmArgs().isBlank()) {
+            command.addAll(Arrays.asList(settings.applicationJvmArgs().trim().split("\\s+")));
+        }
+        command.add("-jar");
+        command.add(settings.applicationJar().toAbsolutePath().toString());
+
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .directory(workingDirectory.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(logFile.toFile());
+        Map<String, String> environment = builder.environment();
+        environment.put("DATABASE_HOST", settings.databaseHost());
+        environment.put("DATABASE_PORT", String.valueOf(settings.databasePort()));
+        environment.put("DATABASE_USER", settings.databaseUser());
+        environment.put("DATABASE_PASSWORD", settings.databasePassword());
+        environment.put("DATABASE_NAME", settings.databaseName());
+        environment.put("SERVER_PORT", String.valueOf(settings.serverPort()));
+
+        System.out.println("Starting " + settings.applicationJar().getFileName() + " on port " + settings.serverPort()
+                + " (logs: " + logFile + ")");
+        ApplicationProcess application = new ApplicationProcess(builder.start(), logFile);
+        application.awaitReady(settings, httpClient);
+        return application;
+    }
+
+    private void awaitReady(LoadTestSettings settings, HttpClient httpClient) throws InterruptedException {
+        HttpRequest ping = HttpRequest.newBuilder(URI.create(settings.baseUrl() + "/ping"))
+                .timeout(Duration.ofSeconds(2))
+                .build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with code " + process.exitValue()
+                        + ", see " + logFile);
+            }
+            try {
+                if (httpClient.send(ping, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Pas encore à l'écoute
+            }
+            Thread.sleep(500);
+        }
+        close();
+        throw new IllegalStateException("Application not ready after " + STARTUP_TIMEOUT + ", see " + logFile);
+    }
+
+    // Arrêt propre (SIGTERM), puis forcé après 20 s ou si le thread est interrompu pendant l'attente
+    @Override
+    public void close() {
+        process.destroy();
+        try {
+            if (!process.waitFor(20, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package edu.hei.school.restaurant.perf;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * (Re)création d'une base de performance et application du schéma {@code db/migration},
+ * partagées par le test de charge et le générateur de jeu de données.
+ */
+public final class DatabaseSchema {
+    // Schéma de base puis scripts versionnés V<n>__*.sql dans l'ordre numérique
+    private static final String BASE_SCHEMA = "migration.sql";
+    private static final Pattern VERSIONED_SCRIPT = Pattern.compile("V(\\d+)__.*\\.sql");
+
+    private DatabaseSchema() {
+    }
+
+    // adminConnection : connexion à une autre base du serveur (postgres)
+    public static void recreate(Connection adminConnection, String databaseName) throws SQLException {
+        try (Statement statement = adminConnection.createStatement()) {
+            statement.execute("DROP DATABASE IF EXISTS " + databaseName + " WITH (FORCE)");
+            statement.execute("CREATE DATABASE " + databaseName);
+        }
+    }
+
+    public static void migrate(Connection connection, Path migrationDirectory) throws SQLException, IOException {
+        try (Statement statement = connection.createStatement()) {
+            for (Path script : migrationScripts(migrationDirectory)) {
+                String sql = Files.readString(script);
+                if (sql.isBlank()) {
+                    continue;
+                }
+                System.out.println("Applying " + script.getFileName());
+                statement.execute(sql);
+            }
+        }
+    }
+
+    private static List<Path> migrationScripts(Path migrationDirectory) throws IOException {
+        List<Path> scripts = new ArrayList<>();
+        scripts.add(migrationDirectory.resolve(BASE_SCHEMA));
+        try (Stream<Path> files = Files.list(migrationDirectory)) {
+            files.filter(file -> VERSIONED_SCRIPT.matcher(file.getFileName().toString()).matches())
+                    .sorted(Comparator.comparingInt(DatabaseSchema::version))
+                    .forEach(scripts::add);
+        }
+        return scripts;
+    }
+
+    private static int version(Path script) {
+        Matcher matcher = VERSIONED_SCRIPT.matcher(script.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a versioned script: " + script);
+        }
+        return Integer.parseInt(matcher.group(1));
+    }
+}
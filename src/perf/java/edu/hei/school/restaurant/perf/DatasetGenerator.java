@@ -0,0 +1,421 @@
+package edu.hei.school.restaurant.perf;
+
+import edu.hei.school.restaurant.dao.CopyWriter;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Générateur de jeu de données volumineux chargé par {@code COPY} : plats et recettes,
+ * ingrédients, historique de prix, registre de mouvements de stock, et commandes avec la
+ * chronologie complète de leurs statuts ({@code order_status}, {@code order_dish_status},
+ * {@code dish_order_status_history}) répartie sur les services du midi et du soir.
+ * <p>
+ * Les données sont ajoutées à la suite des identifiants existants, clés étrangères et index
+ * secondaires retirés le temps du chargement ; en fin de chargement les séquences sont recalées, l'agrégat {@code dish_sales_daily} est reconstruit et un checkpoint
+ * de stock est posé, comme le feraient l'application et son traitement planifié.
+ * <p>
+ * Lancement : {@code ./gradlew generateDataset [-Pdataset.orders=5000000 ...]}, voir
+ * {@link DatasetSettings} pour la liste des paramètres.
+ */
+public class DatasetGenerator {
+    private static final String[] UNITS = {"G", "U", "L"};
+    private static final String[] STATUSES = {"CREE", "CONFIRME", "EN_PREPARATION", "TERMINE", "SERVI"};
+    private static final int MAX_ORDER_LINES = 5;
+    // Part des commandes du jour servie au déjeuner (11h30-14h00), le reste au dîner (18h30-21h30)
+    private static final double LUNCH_SHARE = 0.6;
+
+    private final DatasetSettings settings;
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    private final LocalDate firstDay;
+
+    private long firstIngredientId;
+    private long firstDishId;
+
+    public DatasetGenerator(DatasetSettings settings) {
+        this.settings = settings;
+        // Historique de historyDays jours complets, jusqu'à la veille
+        this.firstDay = now.toLocalDate().minusDays(settings.historyDays());
+    }
+
+    public static void main(String[] args) throws Exception {
+        DatasetSettings settings = DatasetSettings.fromSystemProperties();
+        if (settings.recreateDatabase()) {
+            System.out.println("Recreating database " + settings.databaseName());
+            try (Connection admin = DriverManager.getConnection(settings.jdbcUrl(settings.adminDatabase()),
+                    settings.databaseUser(), settings.databasePassword())) {
+                DatabaseSchema.recreate(admin, settings.databaseName());
+            }
+            try (Connection connection = DriverManager.getConnection(settings.jdbcUrl(settings.databaseName()),
+                    settings.databaseUser(), settings.databasePassword())) {
+                DatabaseSchema.migrate(connection, settings.migrationDirectory());
+            }
+        }
+        new DatasetGenerator(settings).generate();
+    }
+
+    public void generate() throws SQLException {
+        long start = System.nanoTime();
+        try (Connection first = connection(); Connection second = connection()) {
+            firstIngredientId = nextId(first, "ingredient");
+            firstDishId = nextId(first, "dish");
+
+            List<String> restoreStatements = dropForeignKeysAndIndexes(first);
+            try {
+                timed("ingredient", () -> copyIngredients(first));
+                timed("dish + dish_ingredient", () -> copyDishes(first, second));
+                timed("price", () -> copyPrices(first));
+                timed("stock_movement", () -> copyStockMovements(first));
+                timed("order + order_status + order_dish + statuses (5 tables)",
+                        this::copyOrders);
+            } finally {
+                timed("indexes + foreign keys", () -> restore(first, restoreStatements));
+            }
+            timed("sequences, dish_sales_daily, stock checkpoint, analyze", () -> finish(first));
+        }
+        System.out.printf("Dataset generated in %s%n", Duration.ofNanos(System.nanoTime() - start).withNanos(0));
+    }
+
+    /**
+     * Comme pg_restore : les clés étrangères et les index secondaires sont retirés pendant le
+     * chargement puis recréés en une passe (contrôle d'intégrité ensembliste au lieu d'un
+     * déclencheur par ligne). Retourne les ordres de recréation.
+     */
+    private static List<String> dropForeignKeysAndIndexes(Connection connection) throws SQLException {
+        List<String> restoreStatements = new ArrayList<>();
+        List<String> dropStatements = new ArrayList<>();
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery("""
+                    SELECT i.indexrelid::regclass AS name, pg_get_indexdef(i.indexrelid) AS definition
+                    FROM pg_index i
+                    JOIN pg_class c ON c.oid = i.indrelid
+                    JOIN pg_namespace n ON n.oid = c.relnamespace
+                    WHERE n.nspname = 'public' AND NOT i.indisunique AND NOT i.indisprimary
+                    """)) {
+                while (resultSet.next()) {
+                    dropStatements.add("DROP INDEX " + resultSet.getString("name"));
+                    restoreStatements.add(resultSet.getString("definition"));
+                }
+            }
+            try (ResultSet resultSet = statement.executeQuery("""
+                    SELECT c.conrelid::regclass AS table_name, c.conname AS name,
+                           pg_get_constraintdef(c.oid) AS definition
+                    FROM pg_constraint c
+                    JOIN pg_namespace n ON n.oid = c.connamespace
+                    WHERE n.nspname = 'public' AND c.contype = 'f'
+                    """)) {
+                while (resultSet.next()) {
+                    String table = resultSet.getString("table_name");
+                    String name = resultSet.getString("name");
+                    dropStatements.add("ALTER TABLE " + table + " DROP CONSTRAINT " + name);
+                    restoreStatements.add("ALTER TABLE " + table + " ADD CONSTRAINT " + name + " "
+                            + resultSet.getString("definition"));
+                }
+            }
+            for (String drop : dropStatements) {
+                statement.execute(drop);
+            }
+        }
+        return restoreStatements;
+    }
+
+    private static void restore(Connection connection, List<String> restoreStatements) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String restore : restoreStatements) {
+                statement.execute(restore);
+            }
+        }
+    }
+
+    private void copyIngredients(Connection connection) throws SQLException {
+        try (CopyWriter ingredient = new CopyWriter(connection, "ingredient", "id, name")) {
+            for (int i = 0; i < settings.ingredientCount(); i++) {
+                long id = firstIngredientId + i;
+                ingredient.field(id).field("Ingredient " + id).endRow();
+            }
+        }
+    }
+
+    // Unité d'un ingrédient : commune à sa recette et à ses mouvements de stock
+    private static String unit(int ingredientIndex) {
+        return UNITS[ingredientIndex % UNITS.length];
+    }
+
+    private void copyDishes(Connection dishConnection, Connection recipeConnection) throws SQLException {
+        SplittableRandom random = new SplittableRandom(settings.seed());
+        long dishIngredientId = nextId(recipeConnection, "dish_ingredient");
+        try (CopyWriter dish = new CopyWriter(dishConnection, "dish", "id, name, price")) {
+            for (int i = 0; i < settings.dishCount(); i++) {
+                long id = firstDishId + i;
+                dish.field(id).field("Dish " + id).field(5_000 + random.nextInt(40) * 500).endRow();
+            }
+        }
+        try (CopyWriter dishIngredient = new CopyWriter(recipeConnection, "dish_ingredient",
+                "id, id_dish, id_ingredient, required_quantity, unit")) {
+            for (int i = 0; i < settings.dishCount(); i++) {
+                int recipeSize = Math.min(settings.ingredientCount(), 3 + random.nextInt(8));
+                // Ingrédients distincts : tirage d'un point de départ et d'un pas premier avec le nombre d'ingrédients
+                int first = random.nextInt(settings.ingredientCount());
+                int step = coprimeStep(random, settings.ingredientCount());
+                for (int k = 0; k < recipeSize; k++) {
+                    int ingredientIndex = (int) ((first + (long) k * step) % settings.ingredientCount());
+                    String unit = unit(ingredientIndex);
+                    double required = switch (unit) {
+                        case "U" -> 1 + random.nextInt(3);
+                        case "L" -> 0.05 * (1 + random.nextInt(10));
+                        default -> 10 + random.nextInt(240);
+                    };
+                    dishIngredient.field(dishIngredientId++).field(firstDishId + i)
+                            .field(firstIngredientId + ingredientIndex).field(required).field(unit).endRow();
+                }
+            }
+        }
+    }
+
+    private static int coprimeStep(SplittableRandom random, int modulus) {
+        if (modulus == 1) {
+            return 1;
+        }
+        while (true) {
+            int step = 1 + random.nextInt(modulus - 1);
+            if (gcd(step, modulus) == 1) {
+                return step;
+            }
+        }
+    }
+
+    private static int gcd(int a, int b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    // Un prix tous les "spacing" jours par ingrédient, le plus récent à la date du jour
+    private void copyPrices(Connection connection) throws SQLException {
+        SplittableRandom random = new SplittableRandom(settings.seed() + 1);
+        long perIngredient = Math.max(1, settings.priceCount() / settings.ingredientCount());
+        long spacing = Math.max(1, settings.historyDays() / perIngredient);
+        long id = nextId(connection, "price");
+        try (CopyWriter price = new CopyWriter(connection, "price", "id, amount, date_value, id_ingredient")) {
+            for (int i = 0; i < settings.ingredientCount(); i++) {
+                double amount = 50 + random.nextInt(5_000);
+                for (long k = perIngredient - 1; k >= 0; k--) {
+                    amount = Math.max(1, Math.round(amount * (0.97 + random.nextDouble() * 0.07)));
+                    price.field(id++).field(amount).field(now.toLocalDate().minusDays(k * spacing))
+                            .field(firstIngredientId + i).endRow();
+                }
+            }
+        }
+    }
+
+    // Registre chronologique par ingrédient : une livraison IN pour neuf sorties OUT, sans solde négatif
+    private void copyStockMovements(Connection connection) throws SQLException {
+        SplittableRandom random = new SplittableRandom(settings.seed() + 2);
+        long perIngredient = Math.max(1, settings.stockMovementCount() / settings.ingredientCount());
+        LocalDateTime start = firstDay.atStartOfDay();
+        long spanSeconds = ChronoUnit.SECONDS.between(start, now);
+        long id = nextId(connection, "stock_movement");
+        try (CopyWriter stockMovement = new CopyWriter(connection, "stock_movement",
+                "id, quantity, unit, movement_type, creation_datetime, id_ingredient")) {
+            for (int i = 0; i < settings.ingredientCount(); i++) {
+                String unit = unit(i);
+                double scale = switch (unit) {
+                    case "U" -> 1;
+                    case "L" -> 0.1;
+                    default -> 100;
+                };
+                for (long k = 0; k < perIngredient; k++) {
+                    boolean in = k % 10 == 0;
+                    double quantity = in ? scale * (100 + random.nextInt(100)) : scale * (1 + random.nextInt(10));
+                    LocalDateTime creation = start.plusSeconds(spanSeconds * k / perIngredient + random.nextInt(60));
+                    stockMovement.field(id++).field(quantity).field(unit).field(in ? "IN" : "OUT")
+                            .field(creation).field(firstIngredientId + i).endRow();
+                }
+            }
+        }
+    }
+
+    // Les cinq tables de commandes sont chargées en parallèle, une connexion COPY par table
+    private void copyOrders() throws SQLException {
+        try (Connection orderConnection = connection();
+             Connection orderStatusConnection = connection();
+             Connection orderDishConnection = connection();
+             Connection orderDishStatusConnection = connection();
+             Connection historyConnection = connection()) {
+            long orderId = nextId(orderConnection, "order");
+            long orderStatusId = nextId(orderConnection, "order_status");
+            long orderDishId = nextId(orderConnection, "order_dish");
+            long orderDishStatusId = nextId(orderConnection, "order_dish_status");
+            long historyId = nextId(orderConnection, "dish_order_status_history");
+
+            try (CopyWriter order = new CopyWriter(orderConnection, "\"order\"", "id, reference, creation_datetime");
+                 CopyWriter orderStatus = new CopyWriter(orderStatusConnection, "order_status",
+                         "id, order_id, status, status_datetime");
+                 CopyWriter orderDish = new CopyWriter(orderDishConnection, "order_dish",
+                         "id, order_id, dish_id, quantity");
+                 CopyWriter orderDishStatus = new CopyWriter(orderDishStatusConnection, "order_dish_status",
+                         "id, order_dish_id, status, status_datetime");
+                 CopyWriter history = new CopyWriter(historyConnection, "dish_order_status_history",
+                         "id, dish_order_id, status, status_date_time")) {
+                for (long i = 0; i < settings.orderCount(); i++, orderId++) {
+                    OrderTimeline timeline = timeline(i);
+                    order.field(orderId).field("DS" + orderId).field(timeline.created).endRow();
+                    for (int stage = 0; stage < STATUSES.length; stage++) {
+                        LocalDateTime at = timeline.orderStatusAt(stage);
+                        if (at == null) {
+                            break;
+                        }
+                        orderStatus.field(orderStatusId++).field(orderId).field(STATUSES[stage]).field(at).endRow();
+                    }
+                    for (int line = 0; line < timeline.lines(); line++, orderDishId++) {
+                        orderDish.field(orderDishId).field(orderId)
+                                .field(timeline.dishIds[line]).field(timeline.quantities[line]).endRow();
+                        for (int stage = 0; stage < STATUSES.length; stage++) {
+                            LocalDateTime at = timeline.lineStatusAt(line, stage);
+                            if (at == null) {
+                                break;
+                            }
+                            orderDishStatus.field(orderDishStatusId++).field(orderDishId)
+                                    .field(STATUSES[stage]).field(at).endRow();
+                            history.field(historyId++).field(orderDishId).field(STATUSES[stage]).field(at).endRow();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Chronologie de la i-ème commande : créée à intervalles réguliers pendant les services,
+     * confirmée en bloc, puis chaque plat avance à son rythme jusqu'à SERVI. Les statuts
+     * postérieurs à maintenant ne sont pas émis.
+     */
+    private OrderTimeline timeline(long index) {
+        // Graine par commande : le jeu de données ne dépend que de dataset.seed
+        SplittableRandom random = new SplittableRandom(settings.seed() * 1_000_003L + index);
+        long perDay = Math.max(1, settings.orderCount() / settings.historyDays());
+        long day = Math.min(settings.historyDays() - 1L, index / perDay);
+        double position = (index % perDay + random.nextDouble()) / perDay;
+        LocalDateTime created = position < LUNCH_SHARE
+                ? firstDay.plusDays(day).atTime(LocalTime.of(11, 30)).plusSeconds((long) (position / LUNCH_SHARE * 9_000))
+                : firstDay.plusDays(day).atTime(LocalTime.of(18, 30))
+                        .plusSeconds((long) ((position - LUNCH_SHARE) / (1 - LUNCH_SHARE) * 10_800));
+
+        int lines = 1 + random.nextInt(MAX_ORDER_LINES);
+        long[] dishIds = new long[lines];
+        int[] quantities = new int[lines];
+        LocalDateTime[][] lineStatuses = new LocalDateTime[lines][STATUSES.length];
+        LocalDateTime confirmed = created.plusSeconds(60 + random.nextInt(240));
+        for (int line = 0; line < lines; line++) {
+            // Carte déséquilibrée : les premiers plats sont les plus commandés
+            double popularity = random.nextDouble();
+            dishIds[line] = firstDishId + (long) (popularity * popularity * settings.dishCount());
+            quantities[line] = 1 + random.nextInt(3);
+            LocalDateTime[] statuses = lineStatuses[line];
+            statuses[0] = created;
+            statuses[1] = confirmed.plusSeconds(random.nextInt(10));
+            statuses[2] = statuses[1].plusSeconds(60 + random.nextInt(540));
+            statuses[3] = statuses[2].plusSeconds(300 + random.nextInt(1_200));
+            statuses[4] = statuses[3].plusSeconds(60 + random.nextInt(240));
+        }
+        return new OrderTimeline(created, dishIds, quantities, lineStatuses, now);
+    }
+
+    private record OrderTimeline(LocalDateTime created, long[] dishIds, int[] quantities,
+                                 LocalDateTime[][] lineStatuses, LocalDateTime now) {
+        int lines() {
+            return dishIds.length;
+        }
+
+        LocalDateTime lineStatusAt(int line, int stage) {
+            LocalDateTime at = lineStatuses[line][stage];
+            return at.isAfter(now) ? null : at;
+        }
+
+        // Même dérivation que l'application : EN_PREPARATION dès le premier plat en préparation,
+        // les autres statuts quand tous les plats l'ont atteint
+        LocalDateTime orderStatusAt(int stage) {
+            LocalDateTime at = null;
+            for (LocalDateTime[] statuses : lineStatuses) {
+                LocalDateTime lineAt = statuses[stage];
+                if (at == null || (stage == 2 ? lineAt.isBefore(at) : lineAt.isAfter(at))) {
+                    at = lineAt;
+                }
+            }
+            return at.isAfter(now) ? null : at;
+        }
+    }
+
+    private void finish(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String table : new String[]{"ingredient", "dish", "dish_ingredient", "price", "stock_movement",
+                    "order", "order_dish", "order_status", "order_dish_status", "dish_order_status_history"}) {
+                statement.execute("SELECT setval('" + table + "_id_seq', GREATEST(1, (SELECT MAX(id) FROM \""
+                        + table + "\")))");
+            }
+            // Même reconstruction que DishSalesCrudOperations.backfill
+            statement.execute("DELETE FROM dish_sales_daily");
+            statement.execute("""
+                INSERT INTO dish_sales_daily (dish_id, sales_date, quantity_sold, total_amount)
+                SELECT od.dish_id, os.status_datetime::date, SUM(od.quantity), SUM(od.quantity * d.price)
+                FROM "order" o
+                JOIN LATERAL (
+                    SELECT s.status, s.status_datetime
+                    FROM "order_status" s
+                    WHERE s.order_id = o.id
+                    ORDER BY s.status_datetime DESC, s.id DESC
+                    LIMIT 1
+                ) os ON true
+                JOIN order_dish od ON od.order_id = o.id
+                JOIN dish d ON d.id = od.dish_id
+                WHERE os.status = 'SERVI'
+                GROUP BY od.dish_id, os.status_datetime::date
+                """);
+            // Solde de chaque ingrédient à maintenant, comme StockBalanceCheckpointService
+            statement.execute("""
+                INSERT INTO stock_balance_checkpoint (id_ingredient, checkpoint_datetime, balance)
+                SELECT i.id, now()::timestamp, COALESCE(SUM(CASE s.movement_type WHEN 'IN' THEN s.quantity
+                                                                              WHEN 'OUT' THEN -s.quantity
+                                                                              ELSE 0 END), 0)
+                FROM ingredient i
+                LEFT JOIN stock_movement s ON s.id_ingredient = i.id AND s.creation_datetime <= now()::timestamp
+                GROUP BY i.id
+                ON CONFLICT (id_ingredient, checkpoint_datetime) DO NOTHING
+                """);
+            statement.execute("ANALYZE");
+        }
+    }
+
+    private static long nextId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM \"" + table + "\"")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static void timed(String step, SqlStep action) throws SQLException {
+        long start = System.nanoTime();
+        action.run();
+        System.out.printf("%-55s %8d ms%n", step, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @FunctionalInterface
+    private interface SqlStep {
+        void run() throws SQLException;
+    }
+
+    private Connection connection() throws SQLException {
+        return DriverManager.getConnection(
+                settings.jdbcUrl(settings.databaseName()), settings.databaseUser(), settings.databasePassword());
+    }
+}
@@ -0,0 +1,64 @@
+package edu.hei.school.restaurant.perf;
+
+import java.nio.file.Path;
+
+/**
+ * Volumes et cible du générateur de jeu de données, lus depuis les propriétés système
+ * {@code dataset.*} (transmises par {@code ./gradlew generateDataset -Pdataset.xxx=...}) avec
+ * repli sur les variables d'environnement DATABASE_*.
+ * <p>
+ * La base par défaut est celle du test de charge : {@code ./gradlew generateDataset} puis
+ * {@code ./gradlew loadTest -PloadTest.recreateDatabase=false} rejoue le scénario sur ce volume.
+ */
+public record DatasetSettings(
+        Path migrationDirectory,
+        String databaseHost,
+        int databasePort,
+        String databaseUser,
+        String databasePassword,
+        String adminDatabase,
+        String databaseName,
+        boolean recreateDatabase,
+        int dishCount,
+        int ingredientCount,
+        long priceCount,
+        long stockMovementCount,
+        long orderCount,
+        int historyDays,
+        long seed) {
+
+    public static DatasetSettings fromSystemProperties() {
+        String migrations = System.getProperty("dataset.migrations");
+        if (migrations == null || migrations.isBlank()) {
+            throw new IllegalStateException("Missing system property dataset.migrations (lancer via ./gradlew generateDataset)");
+        }
+        return new DatasetSettings(
+                Path.of(migrations),
+                setting("dataset.dbHost", "DATABASE_HOST", "localhost"),
+                Integer.parseInt(setting("dataset.dbPort", "DATABASE_PORT", "5432")),
+                setting("dataset.dbUser", "DATABASE_USER", "postgres"),
+                setting("dataset.dbPassword", "DATABASE_PASSWORD", ""),
+                setting("dataset.adminDatabase", null, "postgres"),
+                setting("dataset.dbName", null, "restaurant_loadtest"),
+                Boolean.parseBoolean(setting("dataset.recreateDatabase", null, "true")),
+                Integer.parseInt(setting("dataset.dishes", null, "2000")),
+                Integer.parseInt(setting("dataset.ingredients", null, "5000")),
+                Long.parseLong(setting("dataset.prices", null, "1000000")),
+                Long.parseLong(setting("dataset.stockMovements", null, "5000000")),
+                Long.parseLong(setting("dataset.orders", null, "1000000")),
+                Integer.parseInt(setting("dataset.days", null, "365")),
+                Long.parseLong(setting("dataset.seed", null, "42")));
+    }
+
+    public String jdbcUrl(String database) {
+        return "jdbc:postgresql://" + databaseHost + ":" + databasePort + "/" + database;
+    }
+
+    private static String setting(String key, String environmentKey, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null && environmentKey != null) {
+            value = System.getenv(environmentKey);
+        }
+        return value != null ? value : defaultValue;
+    }
+}
@@ -0,0 +1,114 @@
+package edu.hei.school.restaurant.perf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Latences (en nanosecondes) et erreurs par endpoint. Toutes les mesures sont conservées
+ * pour calculer des percentiles exacts ; les mesures de la phase de chauffe sont ignorées.
+ */
+public class LatencyRecorder {
+    private final Map<String, EndpointLatencies> latencies = new ConcurrentHashMap<>();
+    private volatile boolean recording;
+
+    public void startRecording() {
+        recording = true;
+    }
+
+    public void stopRecording() {
+        recording = false;
+    }
+
+    public void record(String endpoint, long latencyNanos, boolean success) {
+        if (!recording) {
+            return;
+        }
+        latencies.computeIfAbsent(endpoint, key -> new EndpointLatencies()).add(latencyNanos, success);
+    }
+
+    public List<EndpointReport> report(double elapsedSeconds) {
+        List<EndpointReport> reports = new ArrayList<>();
+        latencies.forEach((endpoint, endpointLatencies) ->
+                reports.add(endpointLatencies.report(endpoint, elapsedSeconds)));
+        reports.sort((left, right) -> left.endpoint().compareTo(right.endpoint()));
+        return reports;
+    }
+
+    public record EndpointReport(
+            String endpoint,
+            long count,
+            long errors,
+            double throughput,
+            double meanMillis,
+            double p50Millis,
+            double p90Millis,
+            double p95Millis,
+            double p99Millis,
+            double maxMillis) {
+    }
+
+    private static class EndpointLatencies {
+        private final ReentrantLock lock = new ReentrantLock();
+        private long[] values = new long[1024];
+        private int size;
+        private long errors;
+
+        void add(long latencyNanos, boolean success) {
+            lock.lock();
+            try {
+                if (!success) {
+                    errors++;
+                    return;
+                }
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                }
+                values[size++] = latencyNanos;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        EndpointReport report(String endpoint, double elapsedSeconds) {
+            long[] sorted;
+            long errorCount;
+            lock.lock();
+            try {
+                sorted = Arrays.copyOf(values, size);
+                errorCount = errors;
+            } finally {
+                lock.unlock();
+            }
+            Arrays.sort(sorted);
+            double mean = sorted.length == 0 ? 0 : Arrays.stream(sorted).average().orElse(0);
+            return new EndpointReport(
+                    endpoint,
+                    sorted.length,
+                    errorCount,
+                    sorted.length / elapsedSeconds,
+                    toMillis(mean),
+                    toMillis(percentile(sorted, 0.50)),
+                    toMillis(percentile(sorted, 0.90)),
+                    toMillis(percentile(sorted, 0.95)),
+                    toMillis(percentile(sorted, 0.99)),
+                    toMillis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+        }
+
+        // Méthode du rang le plus proche
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(quantile * sorted.length);
+            return sorted[Math.max(0, rank - 1)];
+        }
+
+        private static double toMillis(double nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package edu.hei.school.restaurant.perf;
+
+import edu.hei.school.restaurant.perf.LatencyRecorder.EndpointReport;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test de charge de bout en bout : prépare une base PostgreSQL locale dédiée, démarre
+ * l'application, rejoue le scénario {@link LunchRushScenario} avec {@code concurrency}
+ * clients en boucle fermée, puis écrit un rapport de latences et de débit par endpoint.
+ * <p>
+ * Lancement : {@code ./gradlew loadTest [-PloadTest.concurrency=64 -PloadTest.durationSeconds=120 ...]},
+ * voir {@link LoadTestSettings} pour la liste des paramètres.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        LoadTestDatabase database = new LoadTestDatabase(settings);
+        if (settings.recreateDatabase()) {
+            System.out.println("Recreating database " + settings.databaseName());
+            database.recreate();
+            database.migrate();
+            database.seed();
+        }
+        List<Long> dishIds = database.findDishIds();
+        if (dishIds.isEmpty()) {
+            throw new IllegalStateException("No dish with ingredients in " + settings.databaseName());
+        }
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        ApplicationProcess application = ApplicationProcess.start(settings, httpClient);
+        try {
+            LatencyRecorder recorder = new LatencyRecorder();
+            LunchRushScenario scenario = new LunchRushScenario(httpClient, settings.baseUrl(), dishIds, recorder);
+            double elapsedSeconds = run(settings, scenario, recorder);
+            List<EndpointReport> reports = recorder.report(elapsedSeconds);
+            print(settings, reports, elapsedSeconds);
+            write(settings.outputDirectory(), reports);
+        } finally {
+            application.close();
+        }
+    }
+
+    private static double run(LoadTestSettings settings, LunchRushScenario scenario, LatencyRecorder recorder)
+            throws InterruptedException {
+        long warmupEnd = System.nanoTime() + settings.warmup().toNanos();
+        long end = warmupEnd + settings.duration().toNanos();
+        AtomicLong failedIterations = new AtomicLong();
+
+        ExecutorService clients = Executors.newFixedThreadPool(settings.concurrency());
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < settings.concurrency(); i++) {
+            futures.add(clients.submit(() -> {
+                while (System.nanoTime() < end) {
+                    try {
+                        scenario.run();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (RuntimeException e) {
+                        failedIterations.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        System.out.println("Warmup " + settings.warmup().toSeconds() + "s with " + settings.concurrency() + " clients");
+        TimeUnit.NANOSECONDS.sleep(Math.max(0, warmupEnd - System.nanoTime()));
+        recorder.startRecording();
+        long measureStart = System.nanoTime();
+        System.out.println("Measuring " + settings.duration().toSeconds() + "s");
+        TimeUnit.NANOSECONDS.sleep(Math.max(0, end - System.nanoTime()));
+        recorder.stopRecording();
+        double elapsedSeconds = (System.nanoTime() - measureStart) / 1_000_000_000.0;
+
+        clients.shutdown();
+        if (!clients.awaitTermination(60, TimeUnit.SECONDS)) {
+            clients.shutdownNow();
+        }
+        if (failedIterations.get() > 0) {
+            System.out.println("Iterations aborted by an unexpected error: " + failedIterations.get());
+        }
+        return elapsedSeconds;
+    }
+
+    private static void print(LoadTestSettings settings, List<EndpointReport> reports, double elapsedSeconds) {
+        System.out.printf(Locale.ROOT, "%nLunch rush: %d clients, %.1fs measured%n", settings.concurrency(), elapsedSeconds);
+        String header = "%-42s %9s %7s %9s %9s %9s %9s %9s %9s %9s%n";
+        String row = "%-42s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %9.2f%n";
+        System.out.printf(Locale.ROOT, header, "endpoint", "requests", "errors", "req/s",
+                "mean ms", "p50 ms", "p90 ms", "p95 ms", "p99 ms", "max ms");
+        long total = 0;
+        long errors = 0;
+        for (EndpointReport report : reports) {
+            System.out.printf(Locale.ROOT, row, report.endpoint(), report.count(), report.errors(), report.throughput(),
+                    report.meanMillis(), report.p50Millis(), report.p90Millis(), report.p95Millis(),
+                    report.p99Millis(), report.maxMillis());
+            total += report.count();
+            errors += report.errors();
+        }
+        System.out.printf(Locale.ROOT, "%-42s %9d %7d %9.1f%n", "total", total, errors, total / elapsedSeconds);
+    }
+
+    private static void write(Path outputDirectory, List<EndpointReport> reports) throws IOException {
+        Files.createDirectories(outputDirectory);
+        StringBuilder csv = new StringBuilder(
+                "endpoint,requests,errors,throughput_per_s,mean_ms,p50_ms,p90_ms,p95_ms,p99_ms,max_ms\n");
+        for (EndpointReport report : reports) {
+            csv.append(String.format(Locale.ROOT, "\"%s\",%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f%n",
+                    report.endpoint(), report.count(), report.errors(), report.throughput(), report.meanMillis(),
+                    report.p50Millis(), report.p90Millis(), report.p95Millis(), report.p99Millis(), report.maxMillis()));
+        }
+        Path reportFile = outputDirectory.resolve("report.csv");
+        Files.writeString(reportFile, csv);
+        System.out.println("Report written to " + reportFile.toAbsolutePath());
+    }
+}
@@ -0,0 +1,146 @@
+package edu.hei.school.restaurant.perf;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Prépare la base dédiée au test de charge : (re)création, application du schéma
+ * {@code db/migration} puis jeu de données minimal (plats, ingrédients, prix, stock).
+ */
+public class LoadTestDatabase {
+    private final LoadTestSettings settings;
+
+    public LoadTestDatabase(LoadTestSettings settings) {
+        this.settings = settings;
+    }
+
+    public void recreate() throws SQLException {
+        try (Connection connection = adminConnection()) {
+            DatabaseSchema.recreate(connection, settings.databaseName());
+        }
+    }
+
+    public void migrate() throws SQLException, IOException {
+        try (Connection connection = connection()) {
+            DatabaseSchema.migrate(connection, settings.migrationDirectory());
+        }
+    }
+
+    public void seed() throws SQLException {
+        Random random = new Random(settings.seed());
+        try (Connection connection = connection()) {
+            connection.setAutoCommit(false);
+            insertIngredients(connection);
+            insertDishes(connection, random);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT setval('ingredient_id_seq', (SELECT MAX(id) FROM ingredient))");
+                statement.execute("SELECT setval('price_id_seq', (SELECT MAX(id) FROM price))");
+                statement.execute("SELECT setval('dish_id_seq', (SELECT MAX(id) FROM dish))");
+                statement.execute("SELECT setval('dish_ingredient_id_seq', (SELECT MAX(id) FROM dish_ingredient))");
+                statement.execute("SELECT setval('stock_movement_id_seq', (SELECT MAX(id) FROM stock_movement))");
+            }
+            connection.commit();
+        }
+    }
+
+    // Plats ayant une recette : les seuls commandés par le scénario
+    public List<Long> findDishIds() throws SQLException {
+        List<Long> dishIds = new ArrayList<>();
+        try (Connection connection = connection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT DISTINCT id_dish FROM dish_ingredient ORDER BY id_dish")) {
+            while (resultSet.next()) {
+                dishIds.add(resultSet.getLong(1));
+            }
+        }
+        return dishIds;
+    }
+
+    private void insertIngredients(Connection connection) throws SQLException {
+        // Stock initial très large : le test mesure le débit, pas la rupture de stock
+        Timestamp delivery = Timestamp.valueOf(LocalDateTime.now().minusDays(1));
+        try (PreparedStatement ingredient = connection.prepareStatement(
+                "INSERT INTO ingredient (id, name) VALUES (?, ?)");
+             PreparedStatement price = connection.prepareStatement(
+                     "INSERT INTO price (id, amount, date_value, id_ingredient) VALUES (?, ?, ?, ?)");
+             PreparedStatement stockMovement = connection.prepareStatement(
+                     "INSERT INTO stock_movement (id, quantity, unit, movement_type, creation_datetime, id_ingredient) "
+                             + "VALUES (?, ?, 'G'::unit, 'IN'::stock_movement_type, ?, ?)")) {
+            for (long id = 1; id <= settings.ingredientCount(); id++) {
+                ingredient.setLong(1, id);
+                ingredient.setString(2, "Ingredient " + id);
+                ingredient.addBatch();
+
+                price.setLong(1, id);
+                price.setDouble(2, 100 + id % 50 * 20);
+                price.setObject(3, LocalDate.now().minusDays(30));
+                price.setLong(4, id);
+                price.addBatch();
+
+                stockMovement.setLong(1, id);
+                stockMovement.setDouble(2, 1_000_000_000);
+                stockMovement.setTimestamp(3, delivery);
+                stockMovement.setLong(4, id);
+                stockMovement.addBatch();
+            }
+            ingredient.executeBatch();
+            price.executeBatch();
+            stockMovement.executeBatch();
+        }
+    }
+
+    private void insertDishes(Connection connection, Random random) throws SQLException {
+        List<Long> ingredientIds = new ArrayList<>();
+        for (long id = 1; id <= settings.ingredientCount(); id++) {
+            ingredientIds.add(id);
+        }
+        long dishIngredientId = 1;
+        try (PreparedStatement dish = connection.prepareStatement(
+                "INSERT INTO dish (id, name, price) VALUES (?, ?, ?)");
+             PreparedStatement dishIngredient = connection.prepareStatement(
+                     "INSERT INTO dish_ingredient (id, id_dish, id_ingredient, required_quantity, unit) "
+                             + "VALUES (?, ?, ?, ?, 'G'::unit)")) {
+            for (long id = 1; id <= settings.dishCount(); id++) {
+                dish.setLong(1, id);
+                dish.setString(2, "Dish " + id);
+                dish.setDouble(3, 5_000 + random.nextInt(20) * 1_000);
+                dish.addBatch();
+
+                Collections.shuffle(ingredientIds, random);
+                int recipeSize = Math.min(ingredientIds.size(), 3 + random.nextInt(4));
+                for (int i = 0; i < recipeSize; i++) {
+                    dishIngredient.setLong(1, dishIngredientId++);
+                    dishIngredient.setLong(2, id);
+                    dishIngredient.setLong(3, ingredientIds.get(i));
+                    dishIngredient.setDouble(4, 10 + random.nextInt(200));
+                    dishIngredient.addBatch();
+                }
+            }
+            dish.executeBatch();
+            dishIngredient.executeBatch();
+        }
+    }
+
+    private Connection adminConnection() throws SQLException {
+        return DriverManager.getConnection(
+                settings.jdbcUrl(settings.adminDatabase()), settings.databaseUser(), settings.databasePassword());
+    }
+
+    public Connection connection() throws SQLException {
+        return DriverManager.getConnection(
+                settings.jdbcUrl(settings.databaseName()), settings.databaseUser(), settings.databasePassword());
+    }
+}
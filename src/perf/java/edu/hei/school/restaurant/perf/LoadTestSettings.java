@@ -0,0 +1,76 @@
+package edu.hei.school.restaurant.perf;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Paramètres du test de charge, lus depuis les propriétés système {@code loadTest.*}
+ * (transmises par {@code ./gradlew loadTest -PloadTest.xxx=...}) avec repli sur les
+ * variables d'environnement DATABASE_* utilisées par l'application.
+ */
+public record LoadTestSettings(
+        Path applicationJar,
+        Path migrationDirectory,
+        Path outputDirectory,
+        String databaseHost,
+        int databasePort,
+        String databaseUser,
+        String databasePassword,
+        String adminDatabase,
+        String databaseName,
+        boolean recreateDatabase,
+        int dishCount,
+        int ingredientCount,
+        int serverPort,
+        String applicationJvmArgs,
+        int concurrency,
+        Duration warmup,
+        Duration duration,
+        long seed) {
+
+    public static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Path.of(required("loadTest.jar")),
+                Path.of(required("loadTest.migrations")),
+                Path.of(setting("loadTest.outputDir", null, "build/loadtest")),
+                setting("loadTest.dbHost", "DATABASE_HOST", "localhost"),
+                Integer.parseInt(setting("loadTest.dbPort", "DATABASE_PORT", "5432")),
+                setting("loadTest.dbUser", "DATABASE_USER", "postgres"),
+                setting("loadTest.dbPassword", "DATABASE_PASSWORD", ""),
+                setting("loadTest.adminDatabase", null, "postgres"),
+                setting("loadTest.dbName", null, "restaurant_loadtest"),
+                Boolean.parseBoolean(setting("loadTest.recreateDatabase", null, "true")),
+                Integer.parseInt(setting("loadTest.dishes", null, "20")),
+                Integer.parseInt(setting("loadTest.ingredients", null, "60")),
+                Integer.parseInt(setting("loadTest.port", null, "18080")),
+                setting("loadTest.appJvmArgs", null, "-Xmx512m"),
+                Integer.parseInt(setting("loadTest.concurrency", null, "32")),
+                Duration.ofSeconds(Long.parseLong(setting("loadTest.warmupSeconds", null, "15"))),
+                Duration.ofSeconds(Long.parseLong(setting("loadTest.durationSeconds", null, "60"))),
+                Long.parseLong(setting("loadTest.seed", null, "42")));
+    }
+
+    public String jdbcUrl(String database) {
+        return "jdbc:postgresql://" + databaseHost + ":" + databasePort + "/" + database;
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + serverPort;
+    }
+
+    private static String required(String key) {
+        String value = System.getProperty(key);
+        if (value == null || value.isBlank()) {
+            throw new IllegalStateException("Missing system property " + key + " (lancer via ./gradlew loadTest)");
+        }
+        return value;
+    }
+
+    private static String setting(String key, String environmentKey, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null && environmentKey != null) {
+            value = System.getenv(environmentKey);
+        }
+        return value != null ? value : defaultValue;
+    }
+}
@@ -0,0 +1,132 @@
+package edu.hei.school.restaurant.perf;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Parcours d'une table pendant le coup de feu du midi :
+ * <ol>
+ *     <li>{@code POST /orders} avec 1 à 4 plats</li>
+ *     <li>{@code GET /orders/{reference}} (consultation par la salle)</li>
+ *     <li>pour chaque plat, passage CONFIRME → EN_PREPARATION → TERMINE → SERVI via
+ *     {@code PUT /orders/{reference}/dishes/{dishId}}, avec une consultation de la commande
+ *     entre deux étapes une fois sur trois</li>
+ * </ol>
+ * En parallèle, la carte ({@code GET /dishes}) est consultée une fois sur deux et les ventes
+ * ({@code GET /sales}) une fois sur dix.
+ */
+public class LunchRushScenario {
+    private static final String[] DISH_STATUSES = {"CONFIRME", "EN_PREPARATION", "TERMINE", "SERVI"};
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    public static final String CREATE_ORDER = "POST /orders";
+    public static final String GET_ORDER = "GET /orders/{reference}";
+    public static final String UPDATE_DISH_STATUS = "PUT /orders/{reference}/dishes/{dishId}";
+    public static final String GET_DISHES = "GET /dishes";
+    public static final String GET_SALES = "GET /sales";
+
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final List<Long> dishIds;
+    private final LatencyRecorder recorder;
+    // Références uniques même si la base est réutilisée entre deux exécutions
+    private final String referencePrefix = "LT" + Long.toString(System.currentTimeMillis(), 36) + "-";
+    private final AtomicLong orderSequence = new AtomicLong();
+
+    public LunchRushScenario(HttpClient httpClient, String baseUrl, List<Long> dishIds, LatencyRecorder recorder) {
+        this.httpClient = httpClient;
+        this.baseUrl = baseUrl;
+        this.dishIds = dishIds;
+        this.recorder = recorder;
+    }
+
+    public void run() throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(2) == 0) {
+            send(GET_DISHES, get("/dishes"));
+        }
+        if (random.nextInt(10) == 0) {
+            LocalDate today = LocalDate.now();
+            send(GET_SALES, get("/sales?from=" + today.minusDays(7) + "&to=" + today + "&top=10"));
+        }
+
+        String reference = referencePrefix + orderSequence.incrementAndGet();
+        List<Long> orderedDishIds = pickDishes(random, 1 + random.nextInt(4));
+        if (!send(CREATE_ORDER, post("/orders", createOrderBody(reference, orderedDishIds, random)))) {
+            return;
+        }
+        send(GET_ORDER, get("/orders/" + reference));
+
+        for (String status : DISH_STATUSES) {
+            for (Long dishId : orderedDishIds) {
+                HttpRequest request = put("/orders/" + reference + "/dishes/" + dishId,
+                        "{\"newStatus\":\"" + status + "\"}");
+                if (!send(UPDATE_DISH_STATUS, request)) {
+                    return;
+                }
+            }
+            if (random.nextInt(3) == 0) {
+                send(GET_ORDER, get("/orders/" + reference));
+            }
+        }
+    }
+
+    private List<Long> pickDishes(ThreadLocalRandom random, int count) {
+        List<Long> shuffled = new ArrayList<>(dishIds);
+        Collections.shuffle(shuffled, random);
+        return shuffled.subList(0, Math.min(count, shuffled.size()));
+    }
+
+    private static String createOrderBody(String reference, List<Long> orderedDishIds, ThreadLocalRandom random) {
+        StringBuilder body = new StringBuilder("{\"reference\":\"").append(reference).append("\",\"dishes\":[");
+        for (int i = 0; i < orderedDishIds.size(); i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"dishId\":").append(orderedDishIds.get(i))
+                    .append(",\"quantity\":").append(1 + random.nextInt(3)).append('}');
+        }
+        return body.append("]}").toString();
+    }
+
+    private boolean send(String endpoint, HttpRequest request) throws InterruptedException {
+        long start = System.nanoTime();
+        boolean success;
+        try {
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            success = response.statusCode() < 400;
+        } catch (IOException e) {
+            success = false;
+        }
+        recorder.record(endpoint, System.nanoTime() - start, success);
+        return success;
+    }
+
+    private HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    private HttpRequest post(String path, String json) {
+        return request(path).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private HttpRequest put(String path, String json) {
+        return request(path).header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(json)).build();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT);
+    }
+}
@@ -0,0 +1,121 @@
+package edu.hei.school.restaurant.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static edu.hei.school.restaurant.model.StockMovementType.IN;
+import static edu.hei.school.restaurant.model.StockMovementType.OUT;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IngredientTest {
+    private static final Instant T10 = Instant.parse("2025-04-10T10:00:00Z");
+    private static final Instant T11 = Instant.parse("2025-04-10T11:00:00Z");
+    private static final Instant T12 = Instant.parse("2025-04-10T12:00:00Z");
+    private static final Instant T13 = Instant.parse("2025-04-10T13:00:00Z");
+    private static final Instant T14 = Instant.parse("2025-04-10T14:00:00Z");
+
+    @Test
+    void available_quantity_starts_from_the_latest_checkpoint_not_after_the_date() {
+        // Soldes des checkpoints volontairement distincts de la somme des mouvements :
+        // le résultat indique quel checkpoint a servi de point de départ
+        Ingredient ingredient = ingredient(
+                List.of(movement(1, IN, 100, T10), movement(2, OUT, 60, T12), movement(3, IN, 5, T14)),
+                List.of(checkpoint(1, T11, 1000), checkpoint(2, T13, 2000)));
+
+        assertThat(ingredient.getAvailableQuantityAt(T10.plusSeconds(1800))).isEqualTo(100.0);
+        assertThat(ingredient.getAvailableQuantityAt(T11)).isEqualTo(1000.0);
+        assertThat(ingredient.getAvailableQuantityAt(T12.plusSeconds(1800))).isEqualTo(940.0);
+        assertThat(ingredient.getAvailableQuantityAt(T13)).isEqualTo(2000.0);
+        assertThat(ingredient.getAvailableQuantityAt(T14)).isEqualTo(2005.0);
+    }
+
+    @Test
+    void available_quantity_without_checkpoint_sums_the_whole_ledger() {
+        Ingredient ingredient = ingredient(
+                List.of(movement(1, IN, 100, T10), movement(2, OUT, 60, T12)),
+                List.of());
+
+        assertThat(ingredient.getAvailableQuantityAt(T11)).isEqualTo(100.0);
+        assertThat(ingredient.getAvailableQuantityAt(T13)).isEqualTo(40.0);
+    }
+
+    @Test
+    void backdated_movement_invalidates_the_checkpoints_it_precedes() {
+        Ingredient ingredient = ingredient(
+                List.of(movement(1, IN, 100, T10), movement(2, OUT, 30, T12)),
+                List.of(checkpoint(1, T11, 100), checkpoint(2, T13, 70)));
+
+        ingredient.addStockMovements(List.of(movement(3, OUT, 10, T11.plusSeconds(1800))));
+
+        assertThat(ingredient.getStockBalanceCheckpoints()).extracting(StockBalanceCheckpoint::getId).containsExactly(1L);
+        assertThat(ingredient.getStockMovements()).extracting(StockMovement::getId).containsExactly(1L, 3L, 2L);
+        assertThat(ingredient.getAvailableQuantityAt(T14)).isEqualTo(60.0);
+    }
+
+    @Test
+    void movement_at_a_checkpoint_datetime_invalidates_that_checkpoint() {
+        Ingredient ingredient = ingredient(
+                List.of(movement(1, IN, 100, T10), movement(2, OUT, 30, T12)),
+                List.of(checkpoint(1, T11, 100), checkpoint(2, T13, 70)));
+
+        ingredient.addStockMovements(List.of(movement(3, IN, 8, T13)));
+
+        assertThat(ingredient.getStockBalanceCheckpoints()).extracting(StockBalanceCheckpoint::getId).containsExactly(1L);
+        assertThat(ingredient.getAvailableQuantityAt(T14)).isEqualTo(78.0);
+    }
+
+    @Test
+    void movement_after_the_last_checkpoint_keeps_every_checkpoint() {
+        Ingredient ingredient = ingredient(
+                List.of(movement(1, IN, 100, T10), movement(2, OUT, 30, T12)),
+                List.of(checkpoint(1, T11, 100), checkpoint(2, T13, 70)));
+
+        ingredient.addStockMovements(List.of(movement(3, OUT, 5, T14)));
+
+        assertThat(ingredient.getStockBalanceCheckpoints()).extracting(StockBalanceCheckpoint::getId).containsExactly(1L, 2L);
+        assertThat(ingredient.getAvailableQuantityAt(T14)).isEqualTo(65.0);
+    }
+
+    @Test
+    void partial_ledger_refuses_dates_before_its_checkpoint() {
+        // Lu pour une recette : dernier checkpoint et mouvements postérieurs seulement
+        Ingredient ingredient = ingredient(List.of(movement(2, OUT, 30, T12)), List.of(checkpoint(1, T11, 100)));
+        ingredient.setStockMovementsLoadedAfter(T11);
+
+        assertThat(ingredient.getAvailableQuantityAt(T11)).isEqualTo(100.0);
+        assertThat(ingredient.getAvailableQuantityAt(T13)).isEqualTo(70.0);
+        assertThatThrownBy(() -> ingredient.getAvailableQuantityAt(T10))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static Ingredient ingredient(List<StockMovement> stockMovements, List<StockBalanceCheckpoint> checkpoints) {
+        Ingredient ingredient = new Ingredient();
+        ingredient.setId(1L);
+        ingredient.setName("Oeuf");
+        ingredient.setStockMovements(new ArrayList<>(stockMovements));
+        ingredient.setStockBalanceCheckpoints(checkpoints);
+        return ingredient;
+    }
+
+    private static StockMovement movement(long id, StockMovementType type, double quantity, Instant creation) {
+        return StockMovement.builder()
+                .id(id)
+                .movementType(type)
+                .quantity(quantity)
+                .unit(Unit.U)
+                .creationDatetime(creation)
+                .build();
+    }
+
+    private static StockBalanceCheckpoint checkpoint(long id, Instant datetime, double balance) {
+        return StockBalanceCheckpoint.builder()
+                .id(id)
+                .checkpointDatetime(datetime)
+                .balance(balance)
+                .build();
+    }
+}
@@ -0,0 +1,74 @@
+package edu.hei.school.restaurant.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriceTimelineTest {
+    private static final LocalDate JAN_1 = LocalDate.of(2025, 1, 1);
+    private static final LocalDate FEB_1 = LocalDate.of(2025, 2, 1);
+    private static final LocalDate MAR_1 = LocalDate.of(2025, 3, 1);
+
+    @Test
+    void empty_or_missing_prices_give_zero() {
+        for (PriceTimeline timeline : List.of(PriceTimeline.of(List.of()), PriceTimeline.of(null))) {
+            assertThat(timeline.currentPrice()).isEqualTo(0.0);
+            assertThat(timeline.priceAt(JAN_1)).isEqualTo(0.0);
+        }
+    }
+
+    @Test
+    void price_at_is_the_latest_price_not_after_the_date() {
+        // Ordre d'insertion volontairement différent de l'ordre chronologique
+        PriceTimeline timeline = PriceTimeline.of(List.of(
+                price(3000.0, MAR_1), price(1000.0, JAN_1), price(2000.0, FEB_1)));
+
+        assertThat(timeline.priceAt(JAN_1.minusDays(1))).isEqualTo(0.0);
+        assertThat(timeline.priceAt(JAN_1)).isEqualTo(1000.0);
+        assertThat(timeline.priceAt(FEB_1.minusDays(1))).isEqualTo(1000.0);
+        assertThat(timeline.priceAt(FEB_1)).isEqualTo(2000.0);
+        assertThat(timeline.priceAt(MAR_1.plusYears(1))).isEqualTo(3000.0);
+        assertThat(timeline.currentPrice()).isEqualTo(3000.0);
+    }
+
+    @Test
+    void last_listed_price_wins_for_duplicate_dates() {
+        PriceTimeline timeline = PriceTimeline.of(List.of(
+                price(1000.0, JAN_1), price(2500.0, FEB_1), price(2000.0, FEB_1), price(900.0, JAN_1)));
+
+        assertThat(timeline.priceAt(JAN_1)).isEqualTo(900.0);
+        assertThat(timeline.priceAt(FEB_1)).isEqualTo(2000.0);
+        assertThat(timeline.currentPrice()).isEqualTo(2000.0);
+    }
+
+    @Test
+    void prices_without_date_or_amount_are_ignored() {
+        PriceTimeline timeline = PriceTimeline.of(List.of(
+                price(1000.0, JAN_1), price(5000.0, null), price(null, FEB_1)));
+
+        assertThat(timeline.priceAt(FEB_1)).isEqualTo(1000.0);
+        assertThat(timeline.currentPrice()).isEqualTo(1000.0);
+    }
+
+    @Test
+    void ingredient_rebuilds_its_timeline_when_prices_change() {
+        Ingredient ingredient = Ingredient.builder()
+                .prices(new ArrayList<>(List.of(price(1000.0, JAN_1))))
+                .build();
+        assertThat(ingredient.getActualPrice()).isEqualTo(1000.0);
+
+        ingredient.addPrices(new ArrayList<>(List.of(price(2000.0, FEB_1))));
+        assertThat(ingredient.getActualPrice()).isEqualTo(2000.0);
+
+        ingredient.setPrices(List.of(price(1500.0, MAR_1)));
+        assertThat(ingredient.getActualPrice()).isEqualTo(1500.0);
+    }
+
+    private static Price price(Double amount, LocalDate dateValue) {
+        return Price.builder().amount(amount).dateValue(dateValue).build();
+    }
+}